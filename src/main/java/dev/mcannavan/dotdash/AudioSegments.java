@@ -0,0 +1,206 @@
+package dev.mcannavan.dotdash;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.Arrays;
+
+/**
+ * An ordered list of audio segments that together make up a message of morse audio.
+ * <br> Segments are slices of the audio cached by a {@link MorsePlayer}, so a list costs one reference per
+ * character or space rather than a copy of the audio data. Silences are slices of a single shared array of zeros.
+ * The cached audio is never exposed in a writable form.
+ */
+public final class AudioSegments {
+
+    private final byte[][] segments;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final long length;
+
+    private AudioSegments(byte[][] segments, int[] offsets, int[] lengths, long length) {
+        this.segments = segments;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.length = length;
+    }
+
+    /**
+     * Gets the number of segments in this list.
+     *
+     * @return the number of segments
+     */
+    public int size() {
+        return segments.length;
+    }
+
+    /**
+     * Gets the total length of the audio in bytes.
+     *
+     * @return the sum of the lengths of every segment
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Gets the segments as read-only {@code ByteBuffer} views, ready to be passed to {@link GatheringByteChannel#write(ByteBuffer[])}.
+     * <br> A new set of views is created on each call, so the positions of the returned buffers are independent of any other caller.
+     *
+     * @return a {@code ByteBuffer[]} of read-only views of the segments, in order
+     */
+    public ByteBuffer[] toByteBuffers() {
+        ByteBuffer[] buffers = new ByteBuffer[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            buffers[i] = ByteBuffer.wrap(segments[i], offsets[i], lengths[i]).slice().asReadOnlyBuffer();
+        }
+        return buffers;
+    }
+
+    /**
+     * Writes every segment to a {@code GatheringByteChannel}. The channel is not closed by this method.
+     *
+     * @param channel the {@code GatheringByteChannel} to write to
+     * @return the number of bytes written
+     * @throws IOException if an IO Exception occurs
+     */
+    public long writeTo(GatheringByteChannel channel) throws IOException {
+        ByteBuffer[] buffers = toByteBuffers();
+        int offset = 0;
+        while (offset < buffers.length) {
+            channel.write(buffers, offset, buffers.length - offset);
+            while (offset < buffers.length && !buffers[offset].hasRemaining()) {
+                offset++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Writes every segment to an {@code OutputStream}, through a copy buffer of {@value SegmentWriter#COPY_BUFFER_SIZE} bytes
+     * so the stream never receives the cached arrays. The stream is not closed by this method.
+     *
+     * @param outputStream the {@code OutputStream} to write to
+     * @return the number of bytes written
+     * @throws IOException if an IO Exception occurs
+     */
+    public long writeTo(OutputStream outputStream) throws IOException {
+        SegmentWriter writer = SegmentWriter.copying(outputStream);
+        for (int i = 0; i < segments.length; i++) {
+            writer.write(segments[i], offsets[i], lengths[i]);
+        }
+        return length;
+    }
+
+    /**
+     * Creates an {@code InputStream} that reads through the segments in order without concatenating them.
+     *
+     * @return a new {@code InputStream} over the audio
+     */
+    public InputStream asInputStream() {
+        return new SegmentInputStream(this);
+    }
+
+    /**
+     * Copies the segments into a single {@code byte[]}.
+     *
+     * @return a {@code byte[]} containing the audio
+     * @throws IllegalStateException if the audio is too long to fit into a single array
+     */
+    public byte[] toByteArray() throws IllegalStateException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Audio is too long to copy into a byte[]: " + length + " bytes");
+        }
+        byte[] result = new byte[(int) length];
+        int head = 0;
+        for (int i = 0; i < segments.length; i++) {
+            System.arraycopy(segments[i], offsets[i], result, head, lengths[i]);
+            head += lengths[i];
+        }
+        return result;
+    }
+
+    /**
+     * Collects segments in order. Segments are referenced, not copied.
+     */
+    static final class Builder {
+        private byte[][] segments = new byte[16][];
+        private int[] offsets = new int[16];
+        private int[] lengths = new int[16];
+        private int size = 0;
+        private long length = 0;
+
+        Builder add(byte[] segment, int offset, int length) {
+            if (length == 0) {
+                return this;
+            }
+            if (size == segments.length) {
+                int capacity = size * 2;
+                segments = Arrays.copyOf(segments, capacity);
+                offsets = Arrays.copyOf(offsets, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            segments[size] = segment;
+            offsets[size] = offset;
+            lengths[size] = length;
+            size++;
+            this.length += length;
+            return this;
+        }
+
+        AudioSegments build() {
+            return new AudioSegments(Arrays.copyOf(segments, size), Arrays.copyOf(offsets, size), Arrays.copyOf(lengths, size), length);
+        }
+    }
+
+    private static final class SegmentInputStream extends InputStream {
+        private final AudioSegments audio;
+        private int index = 0;
+        private int position = 0;
+
+        private SegmentInputStream(AudioSegments audio) {
+            this.audio = audio;
+        }
+
+        private boolean advance() {
+            while (index < audio.segments.length && position == audio.lengths[index]) {
+                index++;
+                position = 0;
+            }
+            return index < audio.segments.length;
+        }
+
+        @Override
+        public int read() {
+            if (!advance()) {
+                return -1;
+            }
+            return audio.segments[index][audio.offsets[index] + position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (off < 0 || len < 0 || len > b.length - off) {
+                throw new IndexOutOfBoundsException("off: " + off + ", len: " + len + ", length: " + b.length);
+            }
+            if (len == 0) {
+                return 0;
+            }
+            int read = 0;
+            while (read < len && advance()) {
+                int count = Math.min(len - read, audio.lengths[index] - position);
+                System.arraycopy(audio.segments[index], audio.offsets[index] + position, b, off + read, count);
+                position += count;
+                read += count;
+            }
+            return read == 0 ? -1 : read;
+        }
+
+        @Override
+        public int available() {
+            return advance() ? audio.lengths[index] - position : 0;
+        }
+    }
+}
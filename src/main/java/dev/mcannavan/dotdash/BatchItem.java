@@ -0,0 +1,99 @@
+package dev.mcannavan.dotdash;
+
+import java.io.OutputStream;
+
+/**
+ * A single message in a batch rendered by {@link MorsePlayer#submitBatch}, and where its audio should be written.
+ * <br> Output streams are written to by a single thread and are not closed once the item is rendered.
+ */
+public final class BatchItem {
+
+    enum Target {
+        AUDIO,
+        WAV,
+        WAV_FILE
+    }
+
+    private final String morse;
+    private final Target target;
+    private final OutputStream outputStream;
+    private final String filePath;
+    private final String fileName;
+
+    private BatchItem(String morse, Target target, OutputStream outputStream, String filePath, String fileName) {
+        if (morse == null) {
+            throw new IllegalArgumentException("Morse cannot be null");
+        }
+        this.morse = morse;
+        this.target = target;
+        this.outputStream = outputStream;
+        this.filePath = filePath;
+        this.fileName = fileName;
+    }
+
+    /**
+     * Creates an item that writes the raw audio data of a message, as {@link MorsePlayer#writeMorseAudio(String, int, OutputStream)} does.
+     *
+     * @param morse        the {@code String} to generate audio data from
+     * @param outputStream the {@code OutputStream} to write the audio data to
+     * @return a new {@code BatchItem}
+     * @throws IllegalArgumentException if either argument is null
+     */
+    public static BatchItem audio(String morse, OutputStream outputStream) throws IllegalArgumentException {
+        if (outputStream == null) {
+            throw new IllegalArgumentException("OutputStream cannot be null");
+        }
+        return new BatchItem(morse, Target.AUDIO, outputStream, null, null);
+    }
+
+    /**
+     * Creates an item that writes a complete wav file of a message, as {@link MorsePlayer#writeWavFileData(String, int, OutputStream)} does.
+     *
+     * @param morse        the {@code String} to generate audio data from
+     * @param outputStream the {@code OutputStream} to write the wav file data to
+     * @return a new {@code BatchItem}
+     * @throws IllegalArgumentException if either argument is null
+     */
+    public static BatchItem wav(String morse, OutputStream outputStream) throws IllegalArgumentException {
+        if (outputStream == null) {
+            throw new IllegalArgumentException("OutputStream cannot be null");
+        }
+        return new BatchItem(morse, Target.WAV, outputStream, null, null);
+    }
+
+    /**
+     * Creates an item that saves a message as a wav file, as {@link MorsePlayer#saveMorseToWavFile(String, int, String, String)} does.
+     *
+     * @param morse    the {@code String} to generate audio data from
+     * @param filePath the path to the directory as a {@code String} that will contain the wav file (e.g. "/home/user/desktop")
+     * @param fileName the name of the file as a {@code String}
+     * @return a new {@code BatchItem}
+     * @throws IllegalArgumentException if any argument is null
+     */
+    public static BatchItem wavFile(String morse, String filePath, String fileName) throws IllegalArgumentException {
+        if (filePath == null || fileName == null) {
+            throw new IllegalArgumentException("File path and name cannot be null");
+        }
+        return new BatchItem(morse, Target.WAV_FILE, null, filePath, fileName);
+    }
+
+    public String getMorse() {
+        return morse;
+    }
+
+    Target getTarget() {
+        return target;
+    }
+
+    OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    String getFilePath() {
+        return filePath;
+    }
+
+    String getFileName() {
+        return fileName;
+    }
+}
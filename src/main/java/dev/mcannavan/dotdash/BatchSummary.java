@@ -0,0 +1,59 @@
+package dev.mcannavan.dotdash;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The outcome of a batch rendered by {@link MorsePlayer#renderBatch}.
+ * <br> Failures are reported per item, by the index of the item in the batch, so one invalid message does not fail the others.
+ */
+public final class BatchSummary {
+
+    private final int total;
+    private final long bytesWritten;
+    private final Map<Integer, Throwable> failures;
+
+    BatchSummary(int total, long bytesWritten, Map<Integer, Throwable> failures) {
+        this.total = total;
+        this.bytesWritten = bytesWritten;
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * Gets the number of items in the batch.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Gets the number of items that were rendered and written successfully.
+     */
+    public int getSucceeded() {
+        return total - failures.size();
+    }
+
+    /**
+     * Gets the total length in bytes of the audio data written by the successful items, excluding wav headers.
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Checks whether every item in the batch succeeded.
+     */
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+
+    /**
+     * Gets the error of each failed item, keyed by the index of the item in the batch and ordered by index.
+     * <br> Invalid morse is reported as an {@code IllegalArgumentException}, and failed writes as an {@code IOException}.
+     *
+     * @return an unmodifiable {@code Map} of item indices to errors
+     */
+    public Map<Integer, Throwable> getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,72 @@
+package dev.mcannavan.dotdash;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, lock-free queue of characters for exactly one producer thread and one consumer thread.
+ * <br> Each side owns one index and only reads the other's, and indices are published with ordered writes, so neither an
+ * offer nor a poll ever blocks, allocates or retries. The capacity is rounded up to a power of two so an index maps to a
+ * slot with a mask.
+ */
+final class CharRingBuffer {
+
+    static final int MAX_CAPACITY = 1 << 30;
+
+    private final char[] buffer;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // next slot to read, written only by the consumer
+    private final AtomicLong tail = new AtomicLong(); // next slot to write, written only by the producer
+
+    CharRingBuffer(int capacity) throws IllegalArgumentException {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_CAPACITY + ", got: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        buffer = new char[size];
+        mask = size - 1;
+    }
+
+    int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Gets the number of characters waiting to be polled. Exact when called by either side, a snapshot otherwise.
+     */
+    int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * Adds a character, called by the producer only.
+     *
+     * @return false if the buffer is full
+     */
+    boolean offer(char character) {
+        long t = tail.get();
+        if (t - head.get() == buffer.length) {
+            return false;
+        }
+        buffer[(int) t & mask] = character;
+        tail.lazySet(t + 1); // publishes the character before the new tail
+        return true;
+    }
+
+    /**
+     * Removes the oldest character, called by the consumer only.
+     *
+     * @return the character, or -1 if the buffer is empty
+     */
+    int poll() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return -1;
+        }
+        char character = buffer[(int) h & mask];
+        head.lazySet(h + 1); // frees the slot only after it has been read
+        return character;
+    }
+}
@@ -0,0 +1,277 @@
+package dev.mcannavan.dotdash;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+/**
+ * Renders the audio of single characters from a snapshot of an alphabet and the settings of a {@link MorsePlayer}.
+ * <br> The dit and dah tones are generated once, on first use, and shared by every character. Characters can either be
+ * rendered into their own array, or composed from slices of the shared tones as they are written. Both are thread-safe.
+ * <br> A renderer derived at a lower amplitude scales the tones of its source with an integer gain instead of synthesizing its own,
+ * so a change of volume never recalculates the sine wave. Scaled samples are within 1 LSB of synthesizing at that amplitude.
+ */
+final class CharacterRenderer implements Function<Character, byte[]> {
+
+    private static final int GAIN_SHIFT = 16;
+    private static final int GAIN_UNIT = 1 << GAIN_SHIFT;
+
+    private final WaveGenerator waveGenerator;
+    private final Map<Character, String> alphabet;
+    private final float ditLength;
+    private final float dahLength;
+    private final double frequency;
+    private final double amplitude;
+    private final int intraCharLength;
+    private final int sampleFrequency;
+    private final int parallelThreshold;
+    private final CharacterRenderer source; //the renderer to scale the tones of, or null to synthesize them
+
+    private volatile byte[][] tones;
+
+    /**
+     * @param waveGenerator   the {@link WaveGenerator} to generate the dit and dah tones with, copied so later changes to it
+     *                        cannot reach tones generated on first use
+     * @param alphabet        the characters and their morse code sequences
+     * @param timing          the {@link IMorseTiming} of the tones
+     * @param frequency       the frequency of the tones in Hertz (Hz)
+     * @param amplitude       the amplitude of the tones, up to {@code Short.MAX_VALUE}
+     * @param intraCharLength the length in bytes of the silence between the symbols of a character
+     * @param parallelThreshold the amount of audio in samples from which work is split across the common fork-join pool, or 0 for none
+     */
+    CharacterRenderer(WaveGenerator waveGenerator, Map<Character, String> alphabet, IMorseTiming timing,
+                      double frequency, double amplitude, int intraCharLength, int parallelThreshold) {
+        this(WaveGenerator.frozenCopyOf(waveGenerator), alphabet, timing.getDitLength(), timing.getDahLength(), frequency, amplitude,
+                intraCharLength, parallelThreshold, null);
+    }
+
+    private CharacterRenderer(WaveGenerator waveGenerator, Map<Character, String> alphabet, float ditLength, float dahLength,
+                              double frequency, double amplitude, int intraCharLength, int parallelThreshold, CharacterRenderer source) {
+        this.waveGenerator = waveGenerator;
+        this.alphabet = alphabet;
+        this.ditLength = ditLength;
+        this.dahLength = dahLength;
+        this.frequency = frequency;
+        this.amplitude = amplitude;
+        this.intraCharLength = intraCharLength;
+        this.sampleFrequency = source == null ? waveGenerator.getSampleFrequency() : source.sampleFrequency;
+        this.parallelThreshold = parallelThreshold;
+        this.source = source;
+    }
+
+    /**
+     * Creates a renderer with the same settings as this one, but a different amplitude. No tones are generated until it is used.
+     * <br> If the amplitude is no greater than this renderer's, its tones are scaled from this renderer's tones rather than synthesized.
+     */
+    CharacterRenderer withAmplitude(double amplitude) {
+        CharacterRenderer base = source != null ? source : this;
+        boolean scaled = base.amplitude > 0 && amplitude >= 0 && amplitude <= base.amplitude;
+        return new CharacterRenderer(waveGenerator, alphabet, ditLength, dahLength, frequency, amplitude, intraCharLength,
+                parallelThreshold, scaled ? base : null);
+    }
+
+    Map<Character, String> getAlphabet() {
+        return alphabet;
+    }
+
+    /**
+     * Checks whether work on the given amount of audio should be split across the common fork-join pool.
+     */
+    boolean isParallel(long samples) {
+        return parallelThreshold > 0 && samples >= parallelThreshold;
+    }
+
+    double getAmplitude() {
+        return amplitude;
+    }
+
+    /**
+     * Gets the sample frequency of the wave generator at the time this renderer was created.
+     */
+    int getSampleFrequency() {
+        return sampleFrequency;
+    }
+
+    private byte[][] tones() {
+        byte[][] result = tones;
+        if (result == null) {
+            synchronized (this) {
+                result = tones;
+                if (result == null) {
+                    if (source != null) {
+                        byte[][] sourceTones = source.tones();
+                        int gain = (int) Math.round(amplitude / source.amplitude * GAIN_UNIT);
+                        result = new byte[][]{applyGain(sourceTones[0], gain), applyGain(sourceTones[1], gain)};
+                    } else if (parallelThreshold > 0) {
+                        ForkJoinTask<byte[]> dit = ForkJoinTask.adapt(
+                                () -> waveGenerator.generateTone(ditLength / 1000, frequency, amplitude, parallelThreshold)).fork();
+                        byte[] dah = waveGenerator.generateTone(dahLength / 1000, frequency, amplitude, parallelThreshold);
+                        result = new byte[][]{dit.join(), dah};
+                    } else {
+                        result = new byte[][]{
+                                waveGenerator.generateTone(ditLength / 1000, frequency, amplitude),
+                                waveGenerator.generateTone(dahLength / 1000, frequency, amplitude)
+                        };
+                    }
+                    tones = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Scales little-endian 16-bit samples by {@code gain / GAIN_UNIT}, rounding half up like {@link Math#round}.
+     * The gain is at most {@code GAIN_UNIT}, so the product cannot overflow an {@code int}.
+     */
+    private static byte[] applyGain(byte[] tone, int gain) {
+        byte[] result = new byte[tone.length];
+        for (int i = 0; i + 1 < tone.length; i += 2) {
+            int sample = (short) ((tone[i] & 0xFF) | (tone[i + 1] << 8));
+            int scaled = (sample * gain + (GAIN_UNIT >> 1)) >> GAIN_SHIFT;
+            result[i] = (byte) scaled;
+            result[i + 1] = (byte) (scaled >> 8);
+        }
+        return result;
+    }
+
+    /**
+     * Renders the audio of a character.
+     *
+     * @param character the character to render
+     * @return the audio of the character, or null if it is not in the alphabet
+     */
+    byte[] render(char character) {
+        String code = alphabet.get(character);
+        if (code == null) {
+            return null;
+        }
+        byte[][] tones = tones();
+        byte[] dit = tones[0];
+        byte[] dah = tones[1];
+
+        int length = Math.max(0, code.length() - 1) * intraCharLength;
+        for (int i = 0; i < code.length(); i++) {
+            char symbol = code.charAt(i);
+            length += symbol == '.' ? dit.length : symbol == '-' ? dah.length : 0;
+        }
+
+        byte[] bytes = new byte[length]; //intra-char spaces are left as the array's initial zeros
+        int head = 0;
+        for (int i = 0; i < code.length(); i++) {
+            switch (code.charAt(i)) {
+                case '.':
+                    System.arraycopy(dit, 0, bytes, head, dit.length);
+                    head += dit.length;
+                    break;
+                case '-':
+                    System.arraycopy(dah, 0, bytes, head, dah.length);
+                    head += dah.length;
+                    break;
+            }
+            if (i < code.length() - 1) {
+                head += intraCharLength; //intra-char space
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Gets the length in bytes of the audio of a character, without rendering it.
+     *
+     * @param character the character to measure
+     * @return the length of the character's audio, or -1 if it is not in the alphabet
+     */
+    long getLength(char character) {
+        String code = alphabet.get(character);
+        if (code == null) {
+            return -1;
+        }
+        byte[][] tones = tones();
+        long length = Math.max(0, code.length() - 1) * (long) intraCharLength;
+        for (int i = 0; i < code.length(); i++) {
+            char symbol = code.charAt(i);
+            length += symbol == '.' ? tones[0].length : symbol == '-' ? tones[1].length : 0;
+        }
+        return length;
+    }
+
+    /**
+     * Writes the audio of a character as slices of the shared dit and dah tones, separated by shared silence, without rendering it.
+     *
+     * @param character the character to write
+     * @param writer    the {@link SegmentWriter} to write to
+     * @return false if the character is not in the alphabet, in which case nothing is written
+     * @throws IOException if an IO Exception occurs
+     */
+    boolean compose(char character, SegmentWriter writer) throws IOException {
+        String code = alphabet.get(character);
+        if (code == null) {
+            return false;
+        }
+        byte[][] tones = tones();
+        for (int i = 0; i < code.length(); i++) {
+            switch (code.charAt(i)) {
+                case '.':
+                    writer.write(tones[0], 0, tones[0].length);
+                    break;
+                case '-':
+                    writer.write(tones[1], 0, tones[1].length);
+                    break;
+            }
+            if (i < code.length() - 1) {
+                writer.writeSilence(intraCharLength); //intra-char space
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Generates the shared tones now, if they have not been generated yet.
+     *
+     * @return the total length in bytes of the shared tones
+     */
+    long prepareTones() {
+        byte[][] result = tones();
+        return (long) result[0].length + result[1].length;
+    }
+
+    /**
+     * Gets the total length in bytes that the audio of every character in the alphabet takes once rendered, without rendering
+     * anything. The symbol counts of each sequence are taken from a compiled {@link TranslationTable}.
+     */
+    long getAlphabetWeight() {
+        TranslationTable table = TranslationTable.compile(alphabet);
+        long ditLength = toneLength(this.ditLength);
+        long dahLength = toneLength(this.dahLength);
+        long total = 0;
+        for (Character key : alphabet.keySet()) {
+            long counts = table.getCounts(key);
+            total += TranslationTable.dits(counts) * ditLength
+                    + TranslationTable.dahs(counts) * dahLength
+                    + Math.max(0, TranslationTable.symbols(counts) - 1) * (long) intraCharLength;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the length in bytes of a tone generated by {@link WaveGenerator#generateTone}, without generating it.
+     */
+    private long toneLength(float lengthMillis) {
+        return lengthMillis > 0 ? waveGenerator.getSampleCount(lengthMillis / 1000) * 2L : 0;
+    }
+
+    /**
+     * Gets the total length in bytes of the shared tones, calculated from their lengths so it is the same before and after
+     * they are generated.
+     */
+    long getToneWeight() {
+        return toneLength(ditLength) + toneLength(dahLength);
+    }
+
+    @Override
+    public byte[] apply(Character character) {
+        return render(character);
+    }
+}
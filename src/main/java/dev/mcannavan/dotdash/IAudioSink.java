@@ -0,0 +1,58 @@
+package dev.mcannavan.dotdash;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.LineUnavailableException;
+
+/**
+ * An interface for the destination of real-time audio played by a {@link MorsePlayback}.
+ * <br> The methods mirror those of a {@code javax.sound.sampled.SourceDataLine}, which is the default sink, so a sink can
+ * be replaced by another device or by a fake line in headless tests. Calls to {@link #write} come from a single feeder thread,
+ * while the other controls may be called from any thread.
+ */
+public interface IAudioSink {
+
+    /**
+     * Opens the sink to receive audio in the given format.
+     *
+     * @param format     the {@code AudioFormat} of the audio that will be written
+     * @param bufferSize the size in bytes of the sink's buffer, which bounds the latency between a write and its playback
+     * @throws LineUnavailableException if the sink cannot be opened
+     */
+    void open(AudioFormat format, int bufferSize) throws LineUnavailableException;
+
+    /**
+     * Starts playing the audio written to the sink.
+     */
+    void start();
+
+    /**
+     * Writes audio to the sink, blocking until all of it has been accepted, or until the sink is flushed or stopped.
+     * <br> The array is only read during the call, and must not be modified or kept by the sink.
+     *
+     * @param bytes  the array holding the audio
+     * @param offset the offset of the audio in the array
+     * @param length the number of bytes to write
+     * @return the number of bytes accepted by the sink
+     */
+    int write(byte[] bytes, int offset, int length);
+
+    /**
+     * Blocks until all the audio written to the sink has been played.
+     */
+    void drain();
+
+    /**
+     * Discards the audio written to the sink that has not been played yet.
+     */
+    void flush();
+
+    /**
+     * Stops playing audio.
+     */
+    void stop();
+
+    /**
+     * Closes the sink, releasing any resources it holds.
+     */
+    void close();
+}
@@ -0,0 +1,80 @@
+package dev.mcannavan.dotdash;
+
+/**
+ * Splits text into the characters of a morse message and the gaps between them, one character at a time.
+ * <br> This is the one place the spacing rules are defined, so rendered audio, measured lengths, estimates and encoded
+ * text always agree. Characters are case-folded individually with {@link Character#toUpperCase(char)}. Whitespace ends a
+ * word: a word gap is visited for each whitespace character between two words, and a character gap between two characters
+ * of a word. Gaps are only visited once the character after them is, so whitespace at the end of the text is dropped.
+ * <br> Subclasses receive the events in order, and the position within a word is kept between calls, so text can be
+ * tokenized in pieces as it arrives.
+ *
+ * @param <E> the checked exception thrown by the events, or {@code RuntimeException} for none
+ */
+abstract class MessageTokenizer<E extends Exception> {
+
+    private int pendingSpaces = 0; //whitespace seen since the last character, visited once another character follows it
+    private boolean inWord = false;
+
+    /**
+     * Tokenizes every character of the text, stopping at the first character that is not found.
+     *
+     * @return the index of the first character that was not found, or -1 if every character was found
+     */
+    final int tokenize(CharSequence text) throws E {
+        for (int i = 0; i < text.length(); i++) {
+            if (!next(text.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Tokenizes a single character, visiting the gaps before it and then the character itself.
+     *
+     * @return false if the character was not found, in which case nothing is visited
+     */
+    final boolean next(char character) throws E {
+        if (Character.isWhitespace(character)) {
+            pendingSpaces++;
+            inWord = false;
+            return true;
+        }
+        char folded = Character.toUpperCase(character);
+        if (!lookup(folded)) {
+            return false;
+        }
+        for (; pendingSpaces > 0; pendingSpaces--) {
+            wordGap();
+        }
+        if (inWord) {
+            charGap();
+        }
+        character(folded);
+        inWord = true;
+        return true;
+    }
+
+    /**
+     * Looks up a case-folded character before any gap in front of it is visited. The result may be kept for {@link #character}.
+     *
+     * @return false if the character is not found
+     */
+    abstract boolean lookup(char character);
+
+    /**
+     * Visits the gap between two words, once for each whitespace character between them.
+     */
+    abstract void wordGap() throws E;
+
+    /**
+     * Visits the gap between two characters of a word.
+     */
+    abstract void charGap() throws E;
+
+    /**
+     * Visits a case-folded character that was found by {@link #lookup}.
+     */
+    abstract void character(char character) throws E;
+}
@@ -0,0 +1,208 @@
+package dev.mcannavan.dotdash;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * An immutable decoder from morse code to text, compiled from a snapshot of a character map.
+ * <br> The morse code sequences are stored as a dichotomic binary tree, packed into arrays: a dot moves to the left child of
+ * a node and a dash to the right, and the node reached at the end of a letter holds its character. Input is read one
+ * symbol at a time, straight from a {@code CharSequence} or {@code Reader}, without splitting it into intermediate strings.
+ * Sequences containing symbols other than dots and dashes cannot be reached by the tree, and are left out of it.
+ */
+final class MorseDecoder {
+
+    private static final int NONE = 0; //the root is never a child, so 0 marks a missing child
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final int[] children; //the dot child of node i at 2i, and the dash child at 2i + 1
+    private final char[] characters;
+    private final boolean[] terminal;
+
+    private MorseDecoder(int[] children, char[] characters, boolean[] terminal) {
+        this.children = children;
+        this.characters = characters;
+        this.terminal = terminal;
+    }
+
+    /**
+     * Compiles a decoder from a snapshot of the given map. Later changes to the map are not reflected in the decoder.
+     */
+    static MorseDecoder compile(Map<Character, String> map) {
+        int capacity = 64;
+        int[] children = new int[capacity * 2];
+        char[] characters = new char[capacity];
+        boolean[] terminal = new boolean[capacity];
+        int size = 1;
+
+        entries:
+        for (Map.Entry<Character, String> entry : map.entrySet()) {
+            String code = entry.getValue();
+            for (int i = 0; i < code.length(); i++) {
+                if (symbolIndex(code.charAt(i)) < 0) {
+                    continue entries;
+                }
+            }
+            int node = 0;
+            for (int i = 0; i < code.length(); i++) {
+                int slot = node * 2 + symbolIndex(code.charAt(i));
+                if (children[slot] == NONE) {
+                    if (size == capacity) {
+                        capacity *= 2;
+                        children = Arrays.copyOf(children, capacity * 2);
+                        characters = Arrays.copyOf(characters, capacity);
+                        terminal = Arrays.copyOf(terminal, capacity);
+                    }
+                    children[slot] = size++;
+                }
+                node = children[slot];
+            }
+            characters[node] = entry.getKey();
+            terminal[node] = true;
+        }
+        return new MorseDecoder(Arrays.copyOf(children, size * 2), Arrays.copyOf(characters, size), Arrays.copyOf(terminal, size));
+    }
+
+    private static int symbolIndex(char symbol) {
+        return symbol == '.' ? 0 : symbol == '-' ? 1 : -1;
+    }
+
+    /**
+     * Decodes morse code, writing a character for each letter and a space for each word separator.
+     *
+     * @param morse           the morse code to decode
+     * @param letterSeparator the separator between letters
+     * @param wordSeparator   the separator between words
+     * @param out             the {@code Appendable} to write the text to
+     * @throws IllegalArgumentException if the morse contains a sequence that is not in the map, or a character that is not a symbol or part of a separator
+     * @throws IOException              if an IO Exception occurs
+     */
+    void decode(CharSequence morse, String letterSeparator, String wordSeparator, Appendable out) throws IOException {
+        decode(new Input(morse), letterSeparator, wordSeparator, out);
+    }
+
+    /**
+     * Decodes morse code read from a {@code Reader}, as {@link #decode(CharSequence, String, String, Appendable)} does.
+     * The reader is read in blocks, and is not closed by this method.
+     */
+    void decode(Reader morse, String letterSeparator, String wordSeparator, Appendable out) throws IOException {
+        decode(new Input(morse), letterSeparator, wordSeparator, out);
+    }
+
+    private void decode(Input input, String letterSeparator, String wordSeparator, Appendable out) throws IOException {
+        int node = 0;
+        long letterStart = 0;
+        while (true) {
+            int next = input.peek(0);
+            if (next < 0) {
+                break;
+            }
+            int symbol = symbolIndex((char) next);
+            if (symbol >= 0) {
+                if (node == 0) {
+                    letterStart = input.index();
+                }
+                node = node == -1 ? -1 : children[node * 2 + symbol];
+                node = node == NONE ? -1 : node;
+                input.skip(1);
+                continue;
+            }
+            boolean word = input.matches(wordSeparator);
+            if (!word && !input.matches(letterSeparator)) {
+                throw new IllegalArgumentException("Unexpected character '" + (char) next + "' at index " + input.index());
+            }
+            endLetter(node, letterStart, out);
+            node = 0;
+            if (word) {
+                out.append(' ');
+            }
+            input.skip(word ? wordSeparator.length() : letterSeparator.length());
+        }
+        endLetter(node, letterStart, out);
+    }
+
+    private void endLetter(int node, long letterStart, Appendable out) throws IOException {
+        if (node == 0) {
+            return; //no symbols since the last separator
+        }
+        if (node < 0 || !terminal[node]) {
+            throw new IllegalArgumentException("could not find the morse sequence starting at index " + letterStart + " in characterMap");
+        }
+        out.append(characters[node]);
+    }
+
+    /**
+     * Reads characters from a {@code CharSequence}, or from a {@code Reader} through a buffer, with enough lookahead to match a separator.
+     */
+    private static final class Input {
+        private final CharSequence sequence;
+        private final Reader reader;
+        private char[] buffer;
+        private int position = 0;
+        private int limit = 0;
+        private long consumed = 0; //characters of the reader discarded from the buffer
+        private boolean exhausted = false;
+
+        private Input(CharSequence sequence) {
+            this.sequence = sequence;
+            this.reader = null;
+        }
+
+        private Input(Reader reader) {
+            this.sequence = null;
+            this.reader = reader;
+            this.buffer = new char[READ_BUFFER_SIZE];
+        }
+
+        private long index() {
+            return consumed + position;
+        }
+
+        private int peek(int offset) throws IOException {
+            if (reader == null) {
+                return position + offset < sequence.length() ? sequence.charAt(position + offset) : -1;
+            }
+            while (position + offset >= limit && !exhausted) {
+                fill();
+            }
+            return position + offset < limit ? buffer[position + offset] : -1;
+        }
+
+        private void fill() throws IOException {
+            if (limit == buffer.length) {
+                if (position > 0) { //move the unread characters to the front of the buffer
+                    System.arraycopy(buffer, position, buffer, 0, limit - position);
+                    consumed += position;
+                    limit -= position;
+                    position = 0;
+                } else { //only reached by a separator longer than the buffer
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                exhausted = true;
+            } else {
+                limit += read;
+            }
+        }
+
+        private boolean matches(String separator) throws IOException {
+            if (separator == null || separator.isEmpty()) {
+                return false;
+            }
+            for (int i = 0; i < separator.length(); i++) {
+                if (peek(i) != separator.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void skip(int count) {
+            position += count;
+        }
+    }
+}
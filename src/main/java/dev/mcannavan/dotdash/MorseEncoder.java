@@ -0,0 +1,74 @@
+package dev.mcannavan.dotdash;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Encodes text to morse code one character at a time, writing each sequence to an {@code Appendable} as soon as it is known.
+ * <br> Characters are looked up in a compiled {@link TranslationTable}, and split into words by a {@link MessageTokenizer}:
+ * a word separator is written for each whitespace character between two words, and whitespace at the end of the text is
+ * dropped, so no copy of the text is ever held.
+ */
+final class MorseEncoder extends MessageTokenizer<IOException> {
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final TranslationTable table;
+    private final String letterSeparator;
+    private final String wordSeparator;
+    private final Appendable out;
+
+    private long index = 0;
+    private String code; //of the character being encoded
+
+    MorseEncoder(TranslationTable table, String letterSeparator, String wordSeparator, Appendable out) {
+        this.table = table;
+        this.letterSeparator = letterSeparator;
+        this.wordSeparator = wordSeparator;
+        this.out = out;
+    }
+
+    void encode(CharSequence text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            encode(text.charAt(i));
+        }
+    }
+
+    void encode(Reader text) throws IOException {
+        char[] buffer = new char[READ_BUFFER_SIZE];
+        int read;
+        while ((read = text.read(buffer)) >= 0) {
+            for (int i = 0; i < read; i++) {
+                encode(buffer[i]);
+            }
+        }
+    }
+
+    private void encode(char character) throws IOException {
+        if (!next(character)) {
+            throw new IllegalArgumentException("could not find character \"" + character + "\" at index " + index + " in characterMap");
+        }
+        index++;
+    }
+
+    @Override
+    boolean lookup(char character) {
+        code = table.get(character);
+        return code != null;
+    }
+
+    @Override
+    void wordGap() throws IOException {
+        out.append(wordSeparator);
+    }
+
+    @Override
+    void charGap() throws IOException {
+        out.append(letterSeparator);
+    }
+
+    @Override
+    void character(char character) throws IOException {
+        out.append(code);
+    }
+}
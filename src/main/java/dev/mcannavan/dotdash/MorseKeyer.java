@@ -0,0 +1,147 @@
+package dev.mcannavan.dotdash;
+
+import java.io.IOException;
+
+/**
+ * A live transmission queue for a {@link MorsePlayer}, created by {@link MorsePlayer#openKeyer}.
+ * <br> Text is appended as it arrives, by one producer thread, and rendered on demand by one consumer thread, such as the
+ * feeder of an audio line. The two sides meet in a lock-free ring buffer, so appending or rendering a character takes the
+ * same time however much text is waiting. Gaps are inserted by the same {@link MessageTokenizer} as for a whole message:
+ * an inter-character space between two characters of a word, and an inter-word space for each whitespace character
+ * between two words. A space is only written once the character after it is rendered, so a word that is still being
+ * typed never ends in a gap.
+ * <br> The keyer renders with the player's characters as they were when it was opened, at the volume it was opened with.
+ */
+public final class MorseKeyer {
+
+    private final RenderedCharacters characters;
+    private final CharRingBuffer queue;
+    private final Renderer renderer = new Renderer(); //consumer state, carried from one poll to the next
+
+    MorseKeyer(RenderedCharacters characters, int capacity) throws IllegalArgumentException {
+        this.characters = characters;
+        this.queue = new CharRingBuffer(capacity);
+    }
+
+    /**
+     * Gets the maximum number of characters that can wait to be rendered.
+     */
+    public int getCapacity() {
+        return queue.capacity();
+    }
+
+    /**
+     * Gets the number of characters waiting to be rendered, including whitespace.
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Appends a character to the transmission. Must only be called by the producer thread.
+     *
+     * @param character the character to send, or whitespace to end the current word
+     * @return true if the character was queued, false if the queue is full
+     * @throws IllegalArgumentException if the character is not in the player's alphabet
+     */
+    public boolean append(char character) throws IllegalArgumentException {
+        char folded = foldCase(character);
+        if (!Character.isWhitespace(folded) && characters.getLength(folded) < 0) {
+            throw new IllegalArgumentException("could not find character \"" + character + "\" in characterMap");
+        }
+        return queue.offer(folded);
+    }
+
+    /**
+     * Appends text to the transmission, stopping early if the queue fills up. Must only be called by the producer thread.
+     * <br> The whole text is validated before any of it is queued.
+     *
+     * @param text the text to send
+     * @return the number of characters queued from the start of the text
+     * @throws IllegalArgumentException if the text contains a character that is not in the player's alphabet
+     */
+    public int append(CharSequence text) throws IllegalArgumentException {
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            char folded = foldCase(character);
+            if (!Character.isWhitespace(folded) && characters.getLength(folded) < 0) {
+                throw new IllegalArgumentException("could not find character \"" + character + "\" at index " + i + " in characterMap");
+            }
+        }
+        int queued = 0;
+        while (queued < text.length() && queue.offer(foldCase(text.charAt(queued)))) {
+            queued++;
+        }
+        return queued;
+    }
+
+    /**
+     * Renders every character waiting in the queue. Must only be called by the consumer thread.
+     *
+     * @return the {@link AudioSegments} of the characters and the gaps before them, empty if nothing could be rendered
+     */
+    public AudioSegments poll() {
+        return poll(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Renders up to the given number of characters from the queue, so a consumer can bound the audio it takes at once.
+     * Must only be called by the consumer thread.
+     *
+     * @param maxCharacters the maximum number of queued characters to take, including whitespace
+     * @return the {@link AudioSegments} of the characters and the gaps before them, empty if nothing could be rendered
+     * @throws IllegalArgumentException if maxCharacters is less than 1
+     */
+    public AudioSegments poll(int maxCharacters) throws IllegalArgumentException {
+        if (maxCharacters < 1) {
+            throw new IllegalArgumentException("maxCharacters must be at least 1, got: " + maxCharacters);
+        }
+        AudioSegments.Builder segments = new AudioSegments.Builder();
+        renderer.writer = segments::add;
+        try {
+            for (int i = 0; i < maxCharacters; i++) {
+                int next = queue.poll();
+                if (next < 0) {
+                    break;
+                }
+                renderer.next((char) next); // validated when it was appended
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // the builder never throws
+        } finally {
+            renderer.writer = null;
+        }
+        return segments.build();
+    }
+
+    /**
+     * Writes the characters and gaps of the transmission to the writer of the current poll.
+     */
+    private final class Renderer extends MessageTokenizer<IOException> {
+        private SegmentWriter writer;
+
+        @Override
+        boolean lookup(char character) {
+            return true;
+        }
+
+        @Override
+        void wordGap() throws IOException {
+            writer.writeSilence(characters.getInterWordLength()); //inter-word space
+        }
+
+        @Override
+        void charGap() throws IOException {
+            writer.writeSilence(characters.getInterCharLength()); //inter-char space
+        }
+
+        @Override
+        void character(char character) throws IOException {
+            characters.write(character, writer);
+        }
+    }
+
+    private static char foldCase(char character) {
+        return Character.isWhitespace(character) ? character : Character.toUpperCase(character);
+    }
+}
@@ -0,0 +1,264 @@
+package dev.mcannavan.dotdash;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.LineUnavailableException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays morse audio from a {@link MorsePlayer} in real time, through an {@link IAudioSink}.
+ * <br> Messages are queued by {@link #play} as {@link AudioSegments}, which reference the audio cached by the player rather than
+ * copying it, and a dedicated feeder thread streams them to the sink in chunks of half the buffer size. The sink's buffer
+ * is the only audio held ahead of playback, so a small buffer gives a short time to first sound and a quick {@link #flush()},
+ * at the cost of more frequent writes.
+ */
+public class MorsePlayback implements AutoCloseable {
+
+    /**
+     * The default size of the sink's buffer in bytes, about 46 milliseconds of audio at 44100 Hz.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 4096;
+
+    private static final int FRAME_SIZE = 2; // 16-bit mono
+
+    private final MorsePlayer player;
+    private final IAudioSink sink;
+    private final int bufferSize;
+
+    private final BlockingQueue<QueuedMessage> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong generation = new AtomicLong(); // incremented by each flush, abandons every message queued before it
+    private final Object idle = new Object();
+    private int pending = 0; // messages queued or being written, guarded by idle
+
+    private Thread feeder;
+    private volatile boolean running = false;
+    private volatile Throwable failure;
+
+    /**
+     * Creates a playback engine for the player through the system's default {@code SourceDataLine}, with the
+     * {@link #DEFAULT_BUFFER_SIZE default buffer size}.
+     *
+     * @param player the {@code MorsePlayer} to render messages with
+     * @throws IllegalArgumentException if the player is null
+     */
+    public MorsePlayback(MorsePlayer player) throws IllegalArgumentException {
+        this(player, new SourceDataLineSink(), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a playback engine for the player through the given sink.
+     *
+     * @param player     the {@code MorsePlayer} to render messages with
+     * @param sink       the {@code IAudioSink} to play audio through
+     * @param bufferSize the size of the sink's buffer in bytes, a positive multiple of the 2-byte frame size
+     * @throws IllegalArgumentException if the player or sink is null, or the buffer size is invalid
+     */
+    public MorsePlayback(MorsePlayer player, IAudioSink sink, int bufferSize) throws IllegalArgumentException {
+        if (player == null) {
+            throw new IllegalArgumentException("Player cannot be null");
+        }
+        if (sink == null) {
+            throw new IllegalArgumentException("Sink cannot be null");
+        }
+        if (bufferSize < FRAME_SIZE * 2 || bufferSize % FRAME_SIZE != 0) {
+            throw new IllegalArgumentException("Buffer size must be a multiple of " + FRAME_SIZE + " and at least " + FRAME_SIZE * 2 + ", got: " + bufferSize);
+        }
+        this.player = player;
+        this.sink = sink;
+        this.bufferSize = bufferSize;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Gets the error that stopped the feeder thread, if any.
+     *
+     * @return the {@code Throwable} thrown while writing to the sink, or null if none has been thrown
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Opens and starts the sink, and starts the feeder thread.
+     *
+     * @throws IllegalStateException    if the playback is already running
+     * @throws LineUnavailableException if the sink cannot be opened
+     */
+    public synchronized void start() throws IllegalStateException, LineUnavailableException {
+        if (running) {
+            throw new IllegalStateException("Playback is already running");
+        }
+        if (feeder != null) {
+            stop(); // release the sink after a failure
+        }
+        AudioFormat format = new AudioFormat(player.getRenderedSampleFrequency(), 16, 1, true, false);
+        sink.open(format, bufferSize);
+        sink.start();
+        failure = null;
+        running = true;
+        feeder = new Thread(this::feed, "dotdash-playback");
+        feeder.setDaemon(true);
+        feeder.start();
+    }
+
+    /**
+     * Queues a message to be played after any messages already queued.
+     * <br> The message is rendered from the player's cached characters before this method returns, so an invalid message
+     * is rejected here and never reaches the sink.
+     *
+     * @param morse         the {@code String} to play
+     * @param volumePercent the volume of the audio as an {@code int} out of 100
+     * @throws IllegalStateException    if the playback is not running
+     * @throws IllegalArgumentException if the given morse contains a character not found in the {@code MorseTranslator}
+     * @throws IOException              if an IO Exception occurs
+     */
+    public void play(String morse, int volumePercent) throws IllegalStateException, IllegalArgumentException, IOException {
+        AudioSegments audio = player.generateMorseSegments(morse, volumePercent);
+        synchronized (idle) {
+            if (!running) {
+                throw new IllegalStateException("Playback is not running", failure);
+            }
+            pending++;
+            queue.add(new QueuedMessage(audio, generation.get())); // stamped under the same lock as a flush
+        }
+    }
+
+    /**
+     * Discards every queued message, along with the rest of the message being played and any audio in the sink's buffer.
+     * The playback keeps running, ready for the next message. A chunk the feeder thread was about to hand to the sink
+     * when the flush happened may still be written, so at most half a buffer of the old message can follow it.
+     */
+    public void flush() {
+        List<QueuedMessage> discarded = new ArrayList<>();
+        synchronized (idle) {
+            generation.incrementAndGet();
+            queue.drainTo(discarded);
+            pending -= discarded.size();
+            idle.notifyAll();
+        }
+        sink.flush();
+    }
+
+    /**
+     * Blocks until every queued message has been played.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void drain() throws InterruptedException {
+        synchronized (idle) {
+            while (pending > 0 && running) {
+                idle.wait();
+            }
+        }
+        if (running) {
+            sink.drain();
+        }
+    }
+
+    /**
+     * Stops playback immediately, discarding any queued audio, then stops and closes the sink.
+     * <br> The playback can be started again afterwards.
+     */
+    public synchronized void stop() {
+        if (!running && feeder == null) {
+            return;
+        }
+        synchronized (idle) {
+            running = false;
+            generation.incrementAndGet();
+            queue.clear();
+            pending = 0;
+            idle.notifyAll();
+        }
+        sink.flush(); // releases a blocked write
+        feeder.interrupt();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                feeder.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        feeder = null;
+        sink.stop();
+        sink.close();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops the playback, see {@link #stop()}.
+     */
+    @Override
+    public void close() {
+        stop();
+    }
+
+    private void feed() {
+        byte[] chunk = new byte[bufferSize / 2];
+        try {
+            while (running) {
+                QueuedMessage message;
+                try {
+                    message = queue.take();
+                } catch (InterruptedException e) {
+                    break;
+                }
+                InputStream audio = message.audio.asInputStream();
+                int read;
+                while (isCurrent(message) && (read = audio.read(chunk, 0, chunk.length)) > 0) {
+                    for (int written = 0; written < read && isCurrent(message); ) {
+                        written += sink.write(chunk, written, read - written); // a line may accept only part of a chunk
+                    }
+                }
+                synchronized (idle) {
+                    if (running) { // a stop has already cleared the count
+                        pending--;
+                        idle.notifyAll();
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            synchronized (idle) {
+                failure = e;
+                running = false;
+                queue.clear();
+                pending = 0;
+                idle.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Checks whether a message should still be played, that is the playback is running and nothing has been flushed since
+     * the message was queued.
+     */
+    private boolean isCurrent(QueuedMessage message) {
+        return running && message.generation == generation.get();
+    }
+
+    private static final class QueuedMessage {
+        private final AudioSegments audio;
+        private final long generation; //of the playback when the message was queued
+
+        private QueuedMessage(AudioSegments audio, long generation) {
+            this.audio = audio;
+            this.generation = generation;
+        }
+    }
+}
@@ -3,13 +3,26 @@ package dev.mcannavan.dotdash;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 
 //TODO
 // - implement better exception handling & throwing
@@ -18,24 +31,69 @@ import java.util.Map;
 public class MorsePlayer {
     private static final int SAMPLES_SIZE_IN_BITS = 16;
     private static final int N_CHANNELS = 1;
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+    private static final int BYTES_PER_SAMPLE = SAMPLES_SIZE_IN_BITS / 8;
 
-    private MorseTranslator translator;
-    private IMorseTiming timing;
-    private double frequency; //Tone frequency in Hertz (Hz)
-    private WaveGenerator waveGenerator;
-    private byte[][] pregenSpaces = new byte[2][];
-    private int volumePercent = 100;
+    private static final int FULL_VOLUME = 100;
+
+    /**
+     * The number of characters a {@link MorseKeyer} can queue when no capacity is given.
+     */
+    public static final int DEFAULT_KEYER_CAPACITY = 1024;
+
+    private volatile MorseTranslator translator;
+    private volatile IMorseTiming timing;
+    private volatile double frequency; //Tone frequency in Hertz (Hz)
+    private volatile WaveGenerator waveGenerator;
+    private volatile Snapshot snapshot; //everything needed to render, replaced as a whole on reconfiguration
+    private boolean sharedCache = false;
+    private boolean lazyRendering = false;
+    private boolean compactCharacters = false;
+    private int parallelThreshold = 0;
 
     public WaveGenerator getWaveGenerator() {
         return waveGenerator;
     }
 
-    public void setWaveGenerator(WaveGenerator waveGenerator) {
+    public synchronized void setWaveGenerator(WaveGenerator waveGenerator) {
         this.waveGenerator = waveGenerator;
     }
 
+    /**
+     * Checks whether this {@code MorsePlayer} takes its pregenerated audio from the {@link SharedRenderCache}.
+     *
+     * @return true if the shared cache is used, false if audio is generated for this player alone
+     */
+    public boolean isUsingSharedCache() {
+        return sharedCache;
+    }
+
+    /**
+     * Checks whether this {@code MorsePlayer} renders the audio of each character the first time it is used.
+     *
+     * @return true if characters are rendered lazily, false if every character is rendered when the player is configured
+     */
+    public boolean isLazyRendering() {
+        return lazyRendering;
+    }
+
+    /**
+     * Checks whether this {@code MorsePlayer} keeps characters as sequences of shared dit and dah tones rather than as rendered audio.
+     *
+     * @return true if characters are composed from shared tones when audio is generated
+     */
+    public boolean isCompactCharacters() {
+        return compactCharacters;
+    }
 
-    private HashMap<Character, byte[]> pregenChars = new HashMap<Character, byte[]>();
+    /**
+     * Gets the amount of audio, in samples, from which this {@code MorsePlayer} renders characters in parallel.
+     *
+     * @return the parallel rendering threshold in samples, or 0 if characters are always rendered sequentially
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
 
 
     MorsePlayer() {
@@ -50,6 +108,10 @@ public class MorsePlayer {
         private IMorseTiming timing;
         private WaveGenerator waveGenerator;
         private double frequency;
+        private boolean sharedCache;
+        private boolean lazyRendering;
+        private boolean compactCharacters;
+        private int parallelThreshold;
 
         public MorsePlayerBuilder() {
             this.timing = null; //Average morse speed and format
@@ -95,6 +157,60 @@ public class MorsePlayer {
             return this;
         }
 
+        /**
+         * Sets whether the player takes its pregenerated audio from the process-wide {@link SharedRenderCache},
+         * so that players with the same settings share one copy instead of each generating their own. Disabled by default.
+         *
+         * @param sharedCache true to use the shared cache
+         * @return this {@code MorsePlayerBuilder} object
+         */
+        public MorsePlayerBuilder withSharedCache(boolean sharedCache) {
+            this.sharedCache = sharedCache;
+            return this;
+        }
+
+        /**
+         * Sets whether the player renders the audio of each character the first time it is used, rather than rendering
+         * the whole alphabet whenever it is built or reconfigured. Rendered characters are memoized and safe to share between threads.
+         * Disabled by default.
+         *
+         * @param lazyRendering true to render characters on demand
+         * @return this {@code MorsePlayerBuilder} object
+         */
+        public MorsePlayerBuilder withLazyRendering(boolean lazyRendering) {
+            this.lazyRendering = lazyRendering;
+            return this;
+        }
+
+        /**
+         * Sets whether the player keeps each character as its sequence of symbols, pointing at one shared dit tone, one shared
+         * dah tone and shared silence, instead of storing rendered audio for every character. The symbols are expanded only
+         * when audio is generated, so the memory used by the player is little more than two tones. Disabled by default.
+         *
+         * @param compactCharacters true to compose characters from shared tones
+         * @return this {@code MorsePlayerBuilder} object
+         */
+        public MorsePlayerBuilder withCompactCharacters(boolean compactCharacters) {
+            this.compactCharacters = compactCharacters;
+            return this;
+        }
+
+        /**
+         * Sets the amount of audio, in samples, from which the player renders its characters in parallel on the common fork-join pool.
+         * <br> The dit and dah tones are generated concurrently, and tones of at least this many samples are split into chunks.
+         * When the whole alphabet is rendered, its characters are assembled in parallel if their estimated total length is at
+         * least this many samples. The audio is byte-identical to sequential rendering. Disabled by default.
+         *
+         * @param parallelThreshold the threshold in samples, or 0 to always render sequentially
+         * @return this {@code MorsePlayerBuilder} object
+         */
+        public MorsePlayerBuilder withParallelRendering(int parallelThreshold) {
+            if (parallelThreshold >= 0) {
+                this.parallelThreshold = parallelThreshold;
+            }
+            return this;
+        }
+
         public MorsePlayer build() throws IOException{
             MorsePlayer morsePlayer = new MorsePlayer();
 
@@ -108,8 +224,12 @@ public class MorsePlayer {
             morsePlayer.builderSetTranslator(translator);
             morsePlayer.builderSetFrequency(frequency);
             morsePlayer.setWaveGenerator(waveGenerator);
+            morsePlayer.sharedCache = sharedCache;
+            morsePlayer.lazyRendering = lazyRendering;
+            morsePlayer.compactCharacters = compactCharacters;
+            morsePlayer.parallelThreshold = parallelThreshold;
 
-            morsePlayer.generateCharacters(100);
+            morsePlayer.generateCharacters();
 
             return morsePlayer;
         }
@@ -119,9 +239,9 @@ public class MorsePlayer {
         return timing;
     }
 
-    public void setTiming(IMorseTiming timing) throws IOException, IllegalArgumentException{
+    public synchronized void setTiming(IMorseTiming timing) throws IOException, IllegalArgumentException{
        builderSetTiming(timing);
-        generateCharacters(volumePercent);
+        generateCharacters();
     }
 
     private void builderSetTiming(IMorseTiming timing) throws IllegalArgumentException{
@@ -140,9 +260,9 @@ public class MorsePlayer {
      * @param frequency the frequency for audio to be generated at, as a {@code double}
      * @throws IOException if an IO Exception occurs
      */
-    public void setFrequency(double frequency) throws IOException {
+    public synchronized void setFrequency(double frequency) throws IOException {
         builderSetFrequency(frequency);
-        generateCharacters(volumePercent);
+        generateCharacters();
 
     }
 
@@ -156,9 +276,9 @@ public class MorsePlayer {
         return translator;
     }
 
-    public void setTranslator(MorseTranslator translator) throws IOException, IllegalArgumentException {
+    public synchronized void setTranslator(MorseTranslator translator) throws IOException, IllegalArgumentException {
         builderSetTranslator(translator);
-        generateCharacters(volumePercent);
+        generateCharacters();
 
     }
 
@@ -169,45 +289,69 @@ public class MorsePlayer {
         this.translator = translator;
     }
 
-    private void generateCharacters(double volumePercent) throws IOException {
+    /**
+     * Renders the characters at full volume from the current settings, and publishes them with the translator as a new snapshot.
+     * Audio generated at other volumes is derived from the snapshot per call, so it is never changed once published.
+     */
+    private void generateCharacters() {
         if (timing == null) {
             throw new IllegalStateException("Expected non null value for MorseTiming");
         } else if (translator == null) {
             throw new IllegalStateException("Expected non null value for MorseTranslator");
         }
-        pregenChars = null;
-        HashMap<Character, byte[]> result = new HashMap<>();
-        byte[][] spaces = new byte[2][];
-        double amplitude = volumePercent / 100 * Short.MAX_VALUE;
-        byte[] dit = waveGenerator.generateTone(timing.getDitLength() / 1000, frequency, amplitude);
-        byte[] dah = waveGenerator.generateTone(timing.getDahLength() / 1000, frequency, amplitude);
-        byte[] intraCharSpace = waveGenerator.generateTone(timing.getIntraCharLength() / 1000, frequency, 0);
-
-        for (Map.Entry<Character, String> entry : translator.getMap().entrySet()) {
-            Character key = entry.getKey();
-            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-
-            char[] temp = translator.toMorseCharArray(key.toString())[0][0];
-            for (int i = 0; i < temp.length; i++) {
-                switch (temp[i]) {
-                    case '.':
-                        bytes.write(dit);
-                        break;
-                    case '-':
-                        bytes.write(dah);
-                        break;
-                }
-                if (i < temp.length - 1) {
-                    bytes.write(intraCharSpace); //intra-char space
+        MorseTranslator translator = this.translator;
+        long modificationCount = translator.getModificationCount(); //read first, so a concurrent change is picked up by the next render
+        Map<Character, String> alphabet = translator.getMap();
+        WaveGenerator generator = WaveGenerator.frozenCopyOf(waveGenerator); //the key, tones and silences all use the same settings
+        RenderedCharacters rendered;
+        if (sharedCache) {
+            RenderKey key = new RenderKey(timing, frequency, generator, compactCharacters, lazyRendering, alphabet);
+            rendered = SharedRenderCache.get(key, () -> renderCharacters(generator, alphabet));
+        } else {
+            rendered = renderCharacters(generator, alphabet);
+        }
+        snapshot = new Snapshot(translator, modificationCount, rendered);
+    }
+
+    /**
+     * Gets the current snapshot, first rendering the characters again if the translator's map has changed since they were rendered.
+     */
+    private Snapshot currentSnapshot() {
+        Snapshot snapshot = this.snapshot;
+        if (snapshot.modificationCount != snapshot.translator.getModificationCount()) {
+            synchronized (this) {
+                if (this.snapshot.modificationCount != this.snapshot.translator.getModificationCount()) {
+                    generateCharacters();
                 }
+                snapshot = this.snapshot;
             }
-            result.put(key, bytes.toByteArray());
         }
-        spaces[0] = waveGenerator.generateTone(timing.getInterCharLength() / 1000, frequency, 0);
-        spaces[1] = waveGenerator.generateTone(timing.getInterWordLength() / 1000, frequency, 0);
+        return snapshot;
+    }
 
-        pregenSpaces = spaces;
-        pregenChars = result;
+    /**
+     * Renders the characters at full volume, from which {@link #prepareSegments} scales every other volume.
+     */
+    private RenderedCharacters renderCharacters(WaveGenerator generator, Map<Character, String> alphabet) {
+        CharacterRenderer renderer = new CharacterRenderer(generator, alphabet, timing, frequency,
+                amplitudeOf(FULL_VOLUME), silenceLength(generator, timing.getIntraCharLength()), parallelThreshold);
+        int interCharSpace = silenceLength(generator, timing.getInterCharLength());
+        int interWordSpace = silenceLength(generator, timing.getInterWordLength());
+
+        if (compactCharacters) {
+            return RenderedCharacters.composed(renderer, interCharSpace, interWordSpace);
+        }
+        return lazyRendering
+                ? RenderedCharacters.lazy(renderer, interCharSpace, interWordSpace)
+                : RenderedCharacters.eager(renderer, interCharSpace, interWordSpace);
+    }
+
+    private static double amplitudeOf(double volumePercent) {
+        return volumePercent / 100 * Short.MAX_VALUE;
+    }
+
+    private static int silenceLength(WaveGenerator generator, float lengthMillis) {
+        return generator.getSampleCount(lengthMillis / 1000) * BYTES_PER_SAMPLE;
     }
 
     /**
@@ -220,72 +364,209 @@ public class MorsePlayer {
      * @throws IOException              if an IO Exception occurs
      */
     public ByteArrayOutputStream generateMorseAudio(String morse, int volumePercent) throws IllegalArgumentException, IOException {
-        if (translator.validateInput(morse)) {
-            if (volumePercent != this.volumePercent) {
-                generateCharacters(volumePercent);
-                this.volumePercent = volumePercent;
-            }
-            ByteArrayOutputStream audioStream = new ByteArrayOutputStream();
-            morse = morse.toUpperCase();
-            String[] split = morse.split(" ");
-            char[][] phrase = new char[split.length][];
-            for (int i = 0; i < split.length; i++) {
-                phrase[i] = split[i].toCharArray();
+        Snapshot rendering = prepareSegments(volumePercent);
+        ByteArrayOutputStream audioStream = new ByteArrayOutputStream(toArrayLength(measureSegments(morse, rendering)));
+        emitSegments(morse, rendering, audioStream::write);
+        return audioStream;
+    }
+
+    /**
+     * Generates a {@code byte[]} containing a given {@code String} of morse code.
+     * <br> The length of the audio is calculated before rendering, so the array is allocated once at its exact size and never copied.
+     *
+     * @param morse         the {@code String} to generate audio data from
+     * @param volumePercent the volume of the generated audio data as an {@code int} out of 100
+     * @return a {@code byte[]} of morse audio
+     * @throws IllegalArgumentException if the given morse contains a character not found in the {@code MorseTranslator}, or the audio is too long for a {@code byte[]}
+     * @throws IOException              if an IO Exception occurs
+     */
+    public byte[] generateMorseAudioBytes(String morse, int volumePercent) throws IllegalArgumentException, IOException {
+        Snapshot rendering = prepareSegments(volumePercent);
+        byte[] audio = new byte[toArrayLength(measureSegments(morse, rendering))];
+        int[] head = new int[1];
+        emitSegments(morse, rendering, (segment, offset, length) -> {
+            if (segment != SegmentWriter.SILENCE) { //the new array is already silent
+                System.arraycopy(segment, offset, audio, head[0], length);
             }
+            head[0] += length;
+        });
+        return audio;
+    }
 
-            for (int i = 0; i < phrase.length; i++) {
-                for (int j = 0; j < phrase[i].length; j++) {
+    /**
+     * Calculates the length in bytes of the audio that would be generated for a given {@code String} of morse code, without generating it.
+     *
+     * @param morse the {@code String} to measure
+     * @return the length of the audio data in bytes
+     * @throws IllegalArgumentException if the given morse contains a character not found in the {@code MorseTranslator}
+     */
+    public long computeAudioLength(String morse) throws IllegalArgumentException {
+        return measureSegments(morse, currentSnapshot());
+    }
 
-                    audioStream.write(pregenChars.get(phrase[i][j]));
-                    if (j < phrase[i].length - 1) {
+    /**
+     * Calculates how long a given {@code String} of morse code takes to send with this player's timing, translator and
+     * sample frequency, without rendering or measuring any audio.
+     *
+     * @param morse the {@code String} to estimate
+     * @return a {@link TransmissionEstimate} whose sample count matches the audio this player would generate
+     * @throws IllegalArgumentException if the given morse contains a character not found in the {@code MorseTranslator}
+     * @see MorseTranslator#estimate
+     */
+    public TransmissionEstimate estimateTransmission(String morse) throws IllegalArgumentException {
+        return translator.estimate(morse, timing, getRenderedSampleFrequency());
+    }
 
-                        audioStream.write(pregenSpaces[0]); //inter-char space
-                    }
-                }
-                if (i < phrase.length - 1) {
-                    audioStream.write(pregenSpaces[1]); //inter-word space
-                }
-            }
+    /**
+     * Gets the sample frequency of the audio this player generates, which is that of its {@code WaveGenerator} when the
+     * characters were last rendered, even if the generator has been changed since.
+     */
+    int getRenderedSampleFrequency() {
+        return currentSnapshot().characters.getSampleFrequency();
+    }
 
-            return audioStream;
-        } else {
-            Map<Integer, Character> invalidChars = translator.findInvalidSymbols(morse);
-            int[] indices = new int[invalidChars.size()];
-            char[] characters = new char[invalidChars.size()];
-            {
-                int i = 0;
-                for (Map.Entry<Integer, Character> entry : invalidChars.entrySet()) {
-                    indices[i] = entry.getKey();
-                    characters[i] = entry.getValue();
-                    i++;
-                }
+    /**
+     * Writes the audio for a given {@code String} of morse code directly to an {@code OutputStream}.
+     * <br> The pregenerated character and space segments are written through a small copy buffer, so memory use does not grow
+     * with the length of the message, and the stream never holds the cached audio itself.
+     * The stream is not closed by this method.
+     *
+     * @param morse         the {@code String} to generate audio data from
+     * @param volumePercent the volume of the generated audio data as an {@code int} out of 100
+     * @param outputStream  the {@code OutputStream} to write the audio data to
+     * @throws IllegalArgumentException if the given morse contains a character not found in the {@code MorseTranslator}
+     * @throws IOException              if an IO Exception occurs
+     */
+    public void writeMorseAudio(String morse, int volumePercent, OutputStream outputStream) throws IllegalArgumentException, IOException {
+        Snapshot rendering = prepareSegments(volumePercent);
+        measureSegments(morse, rendering); // validate before writing anything
+        emitSegments(morse, rendering, SegmentWriter.copying(outputStream));
+    }
+
+    /**
+     * Writes the audio for a given {@code String} of morse code directly to a {@code WritableByteChannel}.
+     * <br> The pregenerated character and space segments are wrapped without copying, so memory use does not grow with the length of the message.
+     * If the channel is a {@code GatheringByteChannel} the segments are written in batches with a single gathering write each.
+     * The channel is not closed by this method.
+     *
+     * @param morse         the {@code String} to generate audio data from
+     * @param volumePercent the volume of the generated audio data as an {@code int} out of 100
+     * @param channel       the {@code WritableByteChannel} to write the audio data to
+     * @throws IllegalArgumentException if the given morse contains a character not found in the {@code MorseTranslator}
+     * @throws IOException              if an IO Exception occurs
+     */
+    public void writeMorseAudio(String morse, int volumePercent, WritableByteChannel channel) throws IllegalArgumentException, IOException {
+        Snapshot rendering = prepareSegments(volumePercent);
+        measureSegments(morse, rendering); // validate before writing anything
+        SegmentWriter writer = channelWriter(channel);
+        emitSegments(morse, rendering, writer);
+        writer.flush();
+    }
+
+    /**
+     * Generates the audio for a given {@code String} of morse code as a list of references to the pregenerated segments.
+     * <br> No audio data is copied, so the cost of the result grows with the number of characters rather than the number of samples.
+     * The returned segments stay valid after the {@code MorsePlayer} is reconfigured.
+     *
+     * @param morse         the {@code String} to generate audio data from
+     * @param volumePercent the volume of the generated audio data as an {@code int} out of 100
+     * @return an {@link AudioSegments} list of the message audio
+     * @throws IllegalArgumentException if the given morse contains a character not found in the {@code MorseTranslator}
+     * @throws IOException              if an IO Exception occurs
+     */
+    public AudioSegments generateMorseSegments(String morse, int volumePercent) throws IllegalArgumentException, IOException {
+        AudioSegments.Builder segments = new AudioSegments.Builder();
+        emitSegments(morse, prepareSegments(volumePercent), segments::add); // nothing escapes if the morse is invalid
+        return segments.build();
+    }
+
+    /**
+     * Opens a {@link MorseKeyer} to send text incrementally as it arrives, with room for {@link #DEFAULT_KEYER_CAPACITY}
+     * queued characters.
+     *
+     * @param volumePercent the volume of the generated audio data as an {@code int} out of 100
+     * @return a new {@code MorseKeyer} rendering with this player's current characters
+     */
+    public MorseKeyer openKeyer(int volumePercent) {
+        return openKeyer(volumePercent, DEFAULT_KEYER_CAPACITY);
+    }
+
+    /**
+     * Opens a {@link MorseKeyer} to send text incrementally as it arrives.
+     * <br> The keyer holds the characters rendered for the current configuration, so reconfiguring this player afterwards
+     * does not change the audio of a transmission already in progress.
+     *
+     * @param volumePercent the volume of the generated audio data as an {@code int} out of 100
+     * @param capacity      the number of characters that can wait to be rendered, rounded up to a power of two
+     * @return a new {@code MorseKeyer} rendering with this player's current characters
+     * @throws IllegalArgumentException if the capacity is less than 1 or greater than 2^30
+     */
+    public MorseKeyer openKeyer(int volumePercent, int capacity) throws IllegalArgumentException {
+        return new MorseKeyer(prepareSegments(volumePercent).characters, capacity);
+    }
+
+    /**
+     * Gets the current snapshot with its characters at the given volume.
+     * <br> The snapshot is read once, so a concurrent reconfiguration cannot change the audio part way through a message.
+     */
+    private Snapshot prepareSegments(int volumePercent) {
+        return currentSnapshot().atAmplitude(amplitudeOf(volumePercent));
+    }
+
+    /**
+     * Writes the audio of the morse in a single pass over the text, split into characters and gaps by a {@link MessageTokenizer}.
+     * <br> If a character is not in the alphabet an {@code IllegalArgumentException} is thrown after the audio before it has
+     * been written, so callers writing to an external target should {@link #measureSegments measure} the morse first.
+     */
+    private static void emitSegments(String morse, Snapshot rendering, SegmentWriter writer) throws IllegalArgumentException, IOException {
+        RenderedCharacters characters = rendering.characters;
+        new MessageTokenizer<IOException>() {
+            @Override
+            boolean lookup(char character) {
+                return true; //validated as it is written
             }
 
-            //swap sorts invalid morse by index ascending for more readable exception
-            for (int i = 0; i < indices.length - 1; i += 1) {
-                int m = i;
-                for (int j = i + 1; j < indices.length; j += 1) {
-                    if (indices[m] > indices[j])
-                        m = j;
-                }
-                int t = indices[m];
-                indices[m] = indices[i];
-                indices[i] = t;
+            @Override
+            void wordGap() throws IOException {
+                writer.writeSilence(characters.getInterWordLength()); //inter-word space
+            }
 
-                char c = characters[m];
-                characters[m] = characters[i];
-                characters[i] = c;
+            @Override
+            void charGap() throws IOException {
+                writer.writeSilence(characters.getInterCharLength()); //inter-char space
             }
 
-            String error = "Invalid Morse Code: ";
-            for (int i = 0; i < indices.length; i++) {
-                error = error.concat("'" + characters[i] + "' at index " + indices[i]);
-                if (i < indices.length - 1) {
-                    error = error.concat(", ");
+            @Override
+            void character(char character) throws IOException {
+                if (!characters.write(character, writer)) {
+                    throw invalidMorseException(morse, rendering.translator);
                 }
             }
-            throw new IllegalArgumentException(error);
+        }.tokenize(morse);
+    }
+
+    /**
+     * Validates the morse and calculates the length in bytes of its audio, in a single pass over the text without writing any audio.
+     *
+     * @throws IllegalArgumentException if the morse contains a character that is not in the alphabet
+     */
+    private static long measureSegments(String morse, Snapshot rendering) throws IllegalArgumentException {
+        SegmentMeasure measure = new SegmentMeasure(rendering.characters);
+        if (measure.tokenize(morse) >= 0) {
+            throw invalidMorseException(morse, rendering.translator);
+        }
+        return measure.length;
+    }
+
+    private static int toArrayLength(long length) throws IllegalArgumentException {
+        if (length > MAX_ARRAY_LENGTH) {
+            throw new IllegalArgumentException("Audio is too long to be held in a single array: " + length + " bytes");
         }
+        return (int) length;
+    }
+
+    private static IllegalArgumentException invalidMorseException(String morse, MorseTranslator translator) {
+        return new IllegalArgumentException("Invalid Morse Code: " + translator.validate(morse).getSummary());
     }
 
     /**
@@ -296,29 +577,65 @@ public class MorsePlayer {
      * @throws IOException              if an IO Exception occurs
      */
     public ByteArrayOutputStream generateWavFileData(ByteArrayOutputStream audioStream) throws IOException {
-        ByteArrayOutputStream wavStream = new ByteArrayOutputStream();
-
-        int dataSize = audioStream.size();
-        byte[] temp = audioStream.toByteArray();
-
-        wavStream.write("RIFF".getBytes());
-        wavStream.write(intToLittleEndian(dataSize + 36)); // sound data + 44 header bytes - 8 bytes for previous bytes
-        wavStream.write("WAVE".getBytes());
-        wavStream.write("fmt ".getBytes());
-        wavStream.write(intToLittleEndian(SAMPLES_SIZE_IN_BITS));
-        wavStream.write(shortToLittleEndian((short) 1));
-        wavStream.write(shortToLittleEndian((short) N_CHANNELS));
-        wavStream.write(intToLittleEndian(waveGenerator.getSampleFrequency()));
-        wavStream.write(intToLittleEndian(waveGenerator.getSampleFrequency() * SAMPLES_SIZE_IN_BITS * N_CHANNELS / 8));
-        wavStream.write(shortToLittleEndian((short) (N_CHANNELS * SAMPLES_SIZE_IN_BITS / 8)));
-        wavStream.write(shortToLittleEndian((short) SAMPLES_SIZE_IN_BITS));
-        wavStream.write("data".getBytes());
-        wavStream.write(intToLittleEndian(dataSize));
-        wavStream.write(temp);
+        ByteBuffer header = createWavHeader(audioStream.size(), currentSnapshot().characters.getSampleFrequency());
+        ByteArrayOutputStream wavStream = new ByteArrayOutputStream(WavHeader.SIZE + audioStream.size());
+        wavStream.write(header.array(), 0, header.remaining());
+        audioStream.writeTo(wavStream);
 
         return wavStream;
     }
 
+    /**
+     * Writes a complete wav file of a given {@code String} of morse code to an {@code OutputStream} in a single pass.
+     * <br> The length of the audio data is calculated from the pregenerated segments before any audio is written,
+     * so the header is written first and the audio is never buffered. The stream is not closed by this method.
+     *
+     * @param morse         the {@code String} to generate audio data from
+     * @param volumePercent the volume of the generated audio data as an {@code int} out of 100
+     * @param outputStream  the {@code OutputStream} to write the wav file data to
+     * @throws IllegalArgumentException if the given morse contains a character not found in the {@code MorseTranslator}, or the audio is too long for a wav file
+     * @throws IOException              if an IO Exception occurs
+     */
+    public void writeWavFileData(String morse, int volumePercent, OutputStream outputStream) throws IllegalArgumentException, IOException {
+        writeWav(morse, prepareSegments(volumePercent), outputStream);
+    }
+
+    private static long writeWav(String morse, Snapshot rendering, OutputStream outputStream) throws IOException {
+        long dataSize = measureSegments(morse, rendering);
+        ByteBuffer header = createWavHeader(dataSize, rendering.characters.getSampleFrequency());
+        outputStream.write(header.array(), 0, header.remaining());
+        emitSegments(morse, rendering, SegmentWriter.copying(outputStream));
+        return dataSize;
+    }
+
+    /**
+     * Writes a complete wav file of a given {@code String} of morse code to a {@code SeekableByteChannel} in a single pass.
+     * <br> A placeholder header is written at the current position of the channel, followed by the audio data.
+     * The RIFF and data sizes are then patched in once the length of the audio is known. The channel is not closed by this method.
+     *
+     * @param morse         the {@code String} to generate audio data from
+     * @param volumePercent the volume of the generated audio data as an {@code int} out of 100
+     * @param channel       the {@code SeekableByteChannel} to write the wav file data to
+     * @throws IllegalArgumentException if the given morse contains a character not found in the {@code MorseTranslator}, or the audio is too long for a wav file
+     * @throws IOException              if an IO Exception occurs
+     */
+    public void writeWavFileData(String morse, int volumePercent, SeekableByteChannel channel) throws IllegalArgumentException, IOException {
+        Snapshot rendering = prepareSegments(volumePercent);
+        measureSegments(morse, rendering); // validate before writing anything
+        int sampleFrequency = rendering.characters.getSampleFrequency();
+        long headerPosition = channel.position();
+        writeFully(channel, createWavHeader(0, sampleFrequency));
+        SegmentWriter writer = channelWriter(channel);
+        emitSegments(morse, rendering, writer);
+        writer.flush();
+
+        long endPosition = channel.position();
+        ByteBuffer header = createWavHeader(endPosition - headerPosition - WavHeader.SIZE, sampleFrequency);
+        channel.position(headerPosition);
+        writeFully(channel, header);
+        channel.position(endPosition);
+    }
+
     /**
      * Creates a file at the given location with the given audio data in the .wav format
      *
@@ -328,24 +645,268 @@ public class MorsePlayer {
      * @throws IOException if an IO Exception occurs
      */
     public void saveMorseToWavFile(ByteArrayOutputStream audioStream, String filePath, String fileName) throws IOException {
+        Path absolutePath = resolveWavPath(filePath, fileName);
+        ByteBuffer header = createWavHeader(audioStream.size(), currentSnapshot().characters.getSampleFrequency());
+
+        try (OutputStream outputStream = Files.newOutputStream(absolutePath)) {
+            outputStream.write(header.array(), 0, header.remaining());
+            audioStream.writeTo(outputStream);
+        }
+    }
+
+    /**
+     * Creates a file at the given location containing a given {@code String} of morse code in the .wav format.
+     * <br> The header and the pregenerated segments are written through a {@code FileChannel} using gathering writes,
+     * so the wav data is never built in memory and the cached segments are not copied.
+     *
+     * @param morse         the {@code String} to generate audio data from
+     * @param volumePercent the volume of the generated audio data as an {@code int} out of 100
+     * @param filePath      the path to the directory as a {@code String} that will contain the wav file (e.g. "/home/user/desktop")
+     * @param fileName      the name of the file as a {@code String}
+     * @throws IllegalArgumentException if the given morse contains a character not found in the {@code MorseTranslator}, or the audio is too long for a wav file
+     * @throws IOException              if an IO Exception occurs
+     */
+    public void saveMorseToWavFile(String morse, int volumePercent, String filePath, String fileName) throws IllegalArgumentException, IOException {
+        Path absolutePath = resolveWavPath(filePath, fileName);
+        saveWav(morse, prepareSegments(volumePercent), absolutePath);
+    }
+
+    private static long saveWav(String morse, Snapshot rendering, Path absolutePath) throws IOException {
+        long dataSize = measureSegments(morse, rendering); // validates before creating the file
+        ByteBuffer header = createWavHeader(dataSize, rendering.characters.getSampleFrequency());
+        try (FileChannel channel = FileChannel.open(absolutePath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            GatheringSegmentWriter writer = new GatheringSegmentWriter(channel);
+            writer.write(header);
+            emitSegments(morse, rendering, writer);
+            writer.flush();
+        }
+        return dataSize;
+    }
+
+    /**
+     * Renders a batch of messages concurrently on an {@code Executor}, against a single snapshot of this player's characters.
+     * <br> Every item reads the same pregenerated audio, so nothing is rendered per item and a concurrent reconfiguration of
+     * the player does not affect a batch in progress. Any executor can be used, including one of platform or virtual threads.
+     * <br> At most {@code maxInFlight} items are queued or rendering at a time. This method blocks the calling thread while
+     * that limit is reached, so a large batch never floods the executor or holds more open outputs than the limit.
+     *
+     * @param items         the {@link BatchItem}s to render, in order
+     * @param volumePercent the volume of the generated audio data as an {@code int} out of 100
+     * @param executor      the {@code Executor} to render the items on
+     * @param maxInFlight   the maximum number of items queued or rendering at a time
+     * @return a future for each item, in order, that completes with the number of audio bytes written, or exceptionally with that item's error
+     * @throws IllegalArgumentException if {@code maxInFlight} is less than 1, or the items or executor are null
+     * @throws InterruptedException     if the calling thread is interrupted while waiting to submit an item, in which case
+     *                                  every item already submitted is cancelled. An item already rendering runs to completion.
+     */
+    public List<CompletableFuture<Long>> submitBatch(List<BatchItem> items, int volumePercent, Executor executor, int maxInFlight)
+            throws IllegalArgumentException, InterruptedException {
+        if (items == null || executor == null) {
+            throw new IllegalArgumentException("Items and executor cannot be null");
+        } else if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be greater than 0. Actual value: " + maxInFlight);
+        }
+        Snapshot rendering = prepareSegments(volumePercent);
+        Semaphore permits = new Semaphore(maxInFlight);
+
+        List<CompletableFuture<Long>> futures = new ArrayList<>(items.size());
+        for (BatchItem item : items) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                for (CompletableFuture<Long> submitted : futures) {
+                    submitted.cancel(true); // an item not yet started is never rendered
+                }
+                throw e;
+            }
+            CompletableFuture<Long> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> renderItem(item, rendering), executor);
+            } catch (RuntimeException e) { // rejected by the executor
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            future.whenComplete((written, error) -> permits.release());
+            futures.add(future);
+        }
+        return futures;
+    }
+
+    /**
+     * Renders a batch of messages concurrently, as {@link #submitBatch} does, and waits for every item to complete.
+     *
+     * @param items         the {@link BatchItem}s to render, in order
+     * @param volumePercent the volume of the generated audio data as an {@code int} out of 100
+     * @param executor      the {@code Executor} to render the items on
+     * @param maxInFlight   the maximum number of items queued or rendering at a time
+     * @return a {@link BatchSummary} of the bytes written and the error of each failed item
+     * @throws IllegalArgumentException if {@code maxInFlight} is less than 1, or the items or executor are null
+     * @throws InterruptedException     if the calling thread is interrupted while submitting or waiting for the items
+     */
+    public BatchSummary renderBatch(List<BatchItem> items, int volumePercent, Executor executor, int maxInFlight)
+            throws IllegalArgumentException, InterruptedException {
+        List<CompletableFuture<Long>> futures = submitBatch(items, volumePercent, executor, maxInFlight);
+        long bytesWritten = 0;
+        Map<Integer, Throwable> failures = new TreeMap<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                bytesWritten += futures.get(i).get();
+            } catch (ExecutionException | CancellationException e) {
+                failures.put(i, unwrapBatchError(e));
+            }
+        }
+        return new BatchSummary(futures.size(), bytesWritten, failures);
+    }
+
+    private static long renderItem(BatchItem item, Snapshot rendering) {
+        String morse = item.getMorse();
+        try {
+            switch (item.getTarget()) {
+                case AUDIO:
+                    long length = measureSegments(morse, rendering); // validate before writing anything
+                    emitSegments(morse, rendering, SegmentWriter.copying(item.getOutputStream()));
+                    return length;
+                case WAV:
+                    return writeWav(morse, rendering, item.getOutputStream());
+                default:
+                    return saveWav(morse, rendering, resolveWavPath(item.getFilePath(), item.getFileName()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Throwable unwrapBatchError(Exception e) {
+        Throwable error = e instanceof ExecutionException ? e.getCause() : e;
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error instanceof UncheckedIOException) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private static Path resolveWavPath(String filePath, String fileName) {
         fileName = !fileName.endsWith(".wav") ? fileName.concat(".wav") : fileName; //append .wav if not already included
 
         Path relativePath = Paths.get(filePath, fileName);
-        Path absolutePath = relativePath.toAbsolutePath().normalize();
+        return relativePath.toAbsolutePath().normalize();
+    }
 
-        ByteArrayOutputStream wavStream = generateWavFileData(audioStream);
+    private static ByteBuffer createWavHeader(long dataSize, int sampleFrequency) throws IllegalArgumentException {
+        return WavHeader.create(sampleFrequency, N_CHANNELS, SAMPLES_SIZE_IN_BITS, dataSize);
+    }
 
-        try (OutputStream outputStream = Files.newOutputStream(absolutePath)) {
-            wavStream.writeTo(outputStream);
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
         }
     }
 
-    private byte[] intToLittleEndian(int value) {
-        return ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value).array();
+    private static SegmentWriter channelWriter(WritableByteChannel channel) {
+        if (channel instanceof GatheringByteChannel) {
+            return new GatheringSegmentWriter((GatheringByteChannel) channel);
+        }
+        return (segment, offset, length) -> writeFully(channel, ByteBuffer.wrap(segment, offset, length).asReadOnlyBuffer());
     }
 
-    private byte[] shortToLittleEndian(short value) {
-        return ByteBuffer.allocate(2).order(ByteOrder.LITTLE_ENDIAN).putShort(value).array();
+    /**
+     * An immutable pairing of a translator with the characters rendered from it, published as a single reference
+     * so that a render never sees the characters of one configuration with the translator of another.
+     */
+    private static final class Snapshot {
+        private final MorseTranslator translator;
+        private final long modificationCount; //of the translator's map when the characters were rendered
+        private final RenderedCharacters characters;
+
+        private Snapshot(MorseTranslator translator, long modificationCount, RenderedCharacters characters) {
+            this.translator = translator;
+            this.modificationCount = modificationCount;
+            this.characters = characters;
+        }
+
+        /**
+         * Gets this snapshot with its characters at a different amplitude, leaving this snapshot unchanged.
+         */
+        private Snapshot atAmplitude(double amplitude) {
+            RenderedCharacters scaled = characters.atAmplitude(amplitude);
+            return scaled == characters ? this : new Snapshot(translator, modificationCount, scaled);
+        }
+    }
+
+    /**
+     * Adds up the length of a message's audio from the lengths of its characters and gaps.
+     */
+    private static final class SegmentMeasure extends MessageTokenizer<RuntimeException> {
+        private final RenderedCharacters characters;
+        private long characterLength; //of the character being measured
+        private long length = 0;
+
+        private SegmentMeasure(RenderedCharacters characters) {
+            this.characters = characters;
+        }
+
+        @Override
+        boolean lookup(char character) {
+            characterLength = characters.getLength(character);
+            return characterLength >= 0;
+        }
+
+        @Override
+        void wordGap() {
+            length += characters.getInterWordLength();
+        }
+
+        @Override
+        void charGap() {
+            length += characters.getInterCharLength();
+        }
+
+        @Override
+        void character(char character) {
+            length += characterLength;
+        }
+    }
+
+    /**
+     * Collects segments into a fixed size batch of buffers, writing each full batch with one gathering write.
+     */
+    private static final class GatheringSegmentWriter implements SegmentWriter {
+        private static final int BATCH_SIZE = 64;
+
+        private final GatheringByteChannel channel;
+        private final ByteBuffer[] batch = new ByteBuffer[BATCH_SIZE];
+        private int size = 0;
+
+        private GatheringSegmentWriter(GatheringByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(byte[] segment, int offset, int length) throws IOException {
+            write(ByteBuffer.wrap(segment, offset, length).asReadOnlyBuffer());
+        }
+
+        private void write(ByteBuffer buffer) throws IOException {
+            batch[size++] = buffer;
+            if (size == batch.length) {
+                flush();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            int offset = 0;
+            while (offset < size) {
+                channel.write(batch, offset, size - offset);
+                while (offset < size && !batch[offset].hasRemaining()) {
+                    batch[offset++] = null;
+                }
+            }
+            size = 0;
+        }
     }
 
-}
\ No newline at end of file
+}
@@ -4,7 +4,11 @@ import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import com.google.common.collect.ImmutableBiMap;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 //TODO add builder pattern
@@ -39,6 +43,26 @@ public class MorseTranslator {
      */
     private final BiMap<Character, String> characterMap;
 
+    /**
+     * The compiled lookup table of the character map, or null if the map has changed since it was last compiled.
+     */
+    private volatile TranslationTable table;
+
+    /**
+     * The compiled decoder of the character map, or null if the map has changed since it was last compiled.
+     */
+    private volatile MorseDecoder decoder;
+
+    /**
+     * The immutable copy of the character map returned by {@link #getMap()}, or null if the map has changed since it was last copied.
+     */
+    private volatile ImmutableBiMap<Character, String> snapshot;
+
+    /**
+     * The number of times the character map has been changed.
+     */
+    private volatile long modificationCount = 0;
+
     /**
      * Instantiates a new Morse translator.
      */
@@ -47,12 +71,28 @@ public class MorseTranslator {
     }
 
     /**
-     * Gets a copy of the character map as a {@code BiMap}.
+     * Gets an immutable copy of the character map as a {@code BiMap}.
+     * <br> The copy is made once and shared by every caller until the map is next changed, so repeated calls are cheap.
      *
      * @return the map
      */
     public BiMap<Character, String> getMap() {
-        return ImmutableBiMap.copyOf(characterMap);
+        ImmutableBiMap<Character, String> result = snapshot;
+        if (result == null) {
+            result = ImmutableBiMap.copyOf(characterMap);
+            snapshot = result;
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of times the character map has been changed by {@link #addMap}, {@link #addPair} or {@link #replacePair}.
+     * <br> Dependent caches can record the count when they are built, and rebuild only once it differs.
+     *
+     * @return the modification count of the character map
+     */
+    public long getModificationCount() {
+        return modificationCount;
     }
 
     /**
@@ -69,7 +109,10 @@ public class MorseTranslator {
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Exception when adding map to characterMap", e);
         }
-        characterMap.putAll(map);
+        if (changesMap(map)) {
+            characterMap.putAll(map);
+            mapChanged();
+        }
         return this;
     }
 
@@ -87,7 +130,10 @@ public class MorseTranslator {
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Exception when adding CharacterSet to characterMap", e);
         }
-        characterMap.putAll(set.getCharacterSet());
+        if (changesMap(set.getCharacterSet())) {
+            characterMap.putAll(set.getCharacterSet());
+            mapChanged();
+        }
         return this;
     }
 
@@ -106,10 +152,52 @@ public class MorseTranslator {
             throw new IllegalArgumentException("The key '"+key+"' already exists in the map with value \""+characterMap.get(key)+"\".");
         } else {
             characterMap.put(key, value);
+            mapChanged();
         }
         return this;
     }
 
+    /**
+     * Checks whether adding the entries would change the character map, so that adding an empty map or entries that are
+     * already present keeps the compiled table and the renders of every {@code MorsePlayer} using this translator.
+     */
+    private boolean changesMap(Map<Character, String> entries) {
+        for (Map.Entry<Character, String> entry : entries.entrySet()) {
+            if (!entry.getValue().equals(characterMap.get(entry.getKey()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void mapChanged() {
+        table = null;
+        decoder = null;
+        snapshot = null;
+        modificationCount++;
+    }
+
+    private MorseDecoder decoder() {
+        MorseDecoder result = decoder;
+        if (result == null) {
+            result = MorseDecoder.compile(characterMap);
+            decoder = result;
+        }
+        return result;
+    }
+
+    /**
+     * Gets the compiled lookup table of the character map, compiling it first if the map has changed.
+     */
+    private TranslationTable table() {
+        TranslationTable result = table;
+        if (result == null) {
+            result = TranslationTable.compile(characterMap);
+            table = result;
+        }
+        return result;
+    }
+
     /**
      * Replaces a character key-value pair in the character map with a new key-value pair.
      *
@@ -122,7 +210,9 @@ public class MorseTranslator {
         if (characterMap.containsValue(value)) {
             throw new IllegalArgumentException("The value \""+value+ "\" already exists in the map for key '" +characterMap.inverse().get(value)+"'.");
         } else {
-            characterMap.replace(key, value);
+            if (characterMap.replace(key, value) != null) {
+                mapChanged();
+            }
         }
         return this;
     }
@@ -147,7 +237,7 @@ public class MorseTranslator {
      * @return true if the input character is mapped to a Morse code sequence in the existing map, false otherwise
      */
     public boolean containsCharacter(char key) {
-        return characterMap.containsKey(key);
+        return table().contains(key);
     }
 
     /**
@@ -173,61 +263,108 @@ public class MorseTranslator {
 
     /**
      * Validates whether the input text can be translated to Morse code.
+     * <br> The text is checked in a single pass, case-folding each character with {@link Character#toUpperCase(char)} on its own.
      *
      * @param text the text to be validated as a{@code String}
      * @return true if the input can be translated to Morse code with the current character map, false otherwise
      */
     public boolean validateInput(String text) {
-        text = text.toUpperCase();
-        char[] characters = text.toCharArray();
+        TranslationTable table = table();
 
-        for (char character : characters) {
-            if (!Character.isWhitespace(character) && !characterMap.containsKey(character)) {
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            if (!table.contains(Character.toUpperCase(character)) && !Character.isWhitespace(character)) {
                 return false;
             }
         }
         return true;
     }
 
+    /**
+     * Finds every character in the input text that cannot be translated to Morse code, as reported by {@link #validate}.
+     *
+     * @param text the text to be validated
+     * @return a {@code Map} from the index of each invalid character to the character as it appears in the text, in ascending order of index
+     */
     public Map<Integer,Character> findInvalidSymbols(String text) {
-        text = text.toUpperCase();
-        Map<Integer,Character> result = new HashMap<>();
-        char[] characters = text.toCharArray();
-        for (int i = 0; i < characters.length; i++) {
-            if(!characterMap.containsKey(characters[i]) && !Character.isWhitespace(characters[i])) {
-                result.put(i,characters[i]);
-            }
+        ValidationResult validation = validate(text);
+        int[] indices = validation.getInvalidIndices();
+        char[] characters = validation.getInvalidCharacters();
+        Map<Integer,Character> result = new LinkedHashMap<>(indices.length * 2);
+        for (int i = 0; i < indices.length; i++) {
+            result.put(indices[i], characters[i]);
         }
         return result;
     }
 
-    //TODO add exception handling
-    public String removeInvalidSymbols(String text) {
-        if(validateInput(text)) {
-            return text;
+    /**
+     * Finds every character in the input text that cannot be translated to Morse code, in a single pass.
+     * <br> Each character is case-folded with {@link Character#toUpperCase(char)} on its own, so indices always refer to the given text.
+     *
+     * @param text the text to be validated, as a {@code CharSequence}
+     * @return a {@link ValidationResult} of the invalid characters and their indices, in ascending order
+     */
+    public ValidationResult validate(CharSequence text) {
+        TranslationTable table = table();
+        int[] indices = new int[0];
+        char[] characters = new char[0];
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            if (!table.contains(Character.toUpperCase(character)) && !Character.isWhitespace(character)) {
+                if (count == indices.length) {
+                    int capacity = Math.max(8, count * 2);
+                    indices = Arrays.copyOf(indices, capacity);
+                    characters = Arrays.copyOf(characters, capacity);
+                }
+                indices[count] = i;
+                characters[count] = character;
+                count++;
+            }
         }
-        String result = text;
-        Map<Integer,Character> invalidSymbols = findInvalidSymbols(text);
-        for (Map.Entry<Integer,Character> entry : invalidSymbols.entrySet()) {
-            int index = entry.getKey();
-            String first = result.substring(0,index);
-            String second = result.substring(index+1);
-            result = first+second;
+        return new ValidationResult(Arrays.copyOf(indices, count), Arrays.copyOf(characters, count));
+    }
+
+    /**
+     * Removes every character that cannot be translated to Morse code from the input text, in a single pass.
+     * <br> The remaining characters keep their original case. Characters are checked as in {@link #validate}.
+     *
+     * @param text the text to be sanitized, as a {@code String}
+     * @return the text without its invalid characters, or the same {@code String} if it has none
+     */
+    public String removeInvalidSymbols(String text) {
+        TranslationTable table = table();
+        StringBuilder result = null;
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            boolean valid = table.contains(Character.toUpperCase(character)) || Character.isWhitespace(character);
+            if (result == null && !valid) {
+                result = new StringBuilder(text.length() - 1).append(text, 0, i);
+            } else if (result != null && valid) {
+                result.append(character);
+            }
         }
-        return result;
+        return result == null ? text : result.toString();
     }
 
-    public int symbolCount(String text) {
-        text = text.toUpperCase();
-        char[] characters = text.toCharArray();
+    /**
+     * Counts the morse code symbols needed to translate the input text, validating it in the same pass.
+     *
+     * @param text the text to be counted, as a {@code String}
+     * @return the total number of symbols in the morse code sequences of the characters
+     * @throws IllegalArgumentException if the input contains a character that is not in the character map
+     */
+    public int symbolCount(String text) throws IllegalArgumentException {
+        TranslationTable table = table();
         int count = 0;
-        if(!validateInput(text)) {
-            throw new IllegalArgumentException("Failed to validate input: the input contains a character without a corresponding key-value pair in the character map.");
-        } else {
-            for (char character : characters) {
-                if (!Character.isWhitespace(character)) {
-                    count += characterMap.get(character).length();
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            if (!Character.isWhitespace(character)) {
+                String code = table.get(Character.toUpperCase(character));
+                if (code == null) {
+                    throw new IllegalArgumentException("Failed to validate input: the input contains a character without a corresponding key-value pair in the character map.");
                 }
+                count += code.length();
             }
         }
         return count;
@@ -238,7 +375,7 @@ public class MorseTranslator {
     }
 
     public char[] getCharacter(char character) {
-        return characterMap.get(character).toCharArray();
+        return table().get(character).toCharArray();
     }
 
     /**
@@ -256,14 +393,16 @@ public class MorseTranslator {
      */
     public char[][][] toMorseCharArray(String text) throws IllegalArgumentException {
         text = text.toUpperCase();
+        TranslationTable table = table();
         String[] words = text.split(" ");
         char[][][] morse = new char[words.length][][];
         for (int i = 0; i < words.length; i++) {
             char[] letters = words[i].toCharArray();
             morse[i] = new char[letters.length][];
             for (int j = 0; j < letters.length; j++) {
-                if(characterMap.get(letters[j]) != null) {
-                    morse[i][j] = characterMap.get(letters[j]).toCharArray();
+                String code = table.get(letters[j]);
+                if(code != null) {
+                    morse[i][j] = code.toCharArray();
                 } else {
                     throw new IllegalArgumentException("could not find character \""+letters[j]+"\" in characterMap");
                 }
@@ -307,13 +446,15 @@ public class MorseTranslator {
      */
     public String toMorseString(String text) throws IllegalArgumentException {
         text = text.toUpperCase();
+        TranslationTable table = table();
         String[] words = text.split(" ");
         StringBuilder morseBuilder = new StringBuilder();
         for (int i = 0; i < words.length; i++) {
             char[] letters = words[i].toCharArray();
             for (int j = 0; j < letters.length; j++) {
-                if(characterMap.get(letters[j]) != null) {
-                    morseBuilder.append(characterMap.get(letters[j]));
+                String code = table.get(letters[j]);
+                if(code != null) {
+                    morseBuilder.append(code);
                 } else {
                     throw new IllegalArgumentException("could not find character \""+letters[j]+"\" in characterMap");
                 }
@@ -327,4 +468,90 @@ public class MorseTranslator {
         }
         return morseBuilder.toString();
     }
+
+    /**
+     * Converts morse code back to text, using the letter and word separators of this {@code MorseTranslator}.
+     * <br> Each letter is looked up by walking a binary tree of dots and dashes compiled from the character map, and each
+     * word separator becomes a single space.
+     *
+     * @param morse the morse code to be converted, as a {@code CharSequence}
+     * @return the decoded text as a {@code String}
+     * @throws IllegalArgumentException if the morse contains a sequence that is not in the character map, or a character that is neither a symbol nor part of a separator
+     */
+    public String fromMorseString(CharSequence morse) throws IllegalArgumentException {
+        StringBuilder text = new StringBuilder(morse.length() / 4 + 1);
+        try {
+            decoder().decode(morse, letterSeparator, wordSeparator, text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); //never thrown by a StringBuilder
+        }
+        return text.toString();
+    }
+
+    /**
+     * Converts morse code read from a {@code Reader} back to text, writing it to an {@code Appendable} as it is decoded.
+     * <br> The morse code is read in blocks, so logs of any length can be decoded in bounded memory. Neither the reader nor
+     * the output is closed by this method.
+     *
+     * @param morse the {@code Reader} to read morse code from
+     * @param text  the {@code Appendable} to write the decoded text to
+     * @throws IllegalArgumentException if the morse contains a sequence that is not in the character map, or a character that is neither a symbol nor part of a separator
+     * @throws IOException              if an IO Exception occurs
+     * @see #fromMorseString(CharSequence)
+     */
+    public void fromMorse(Reader morse, Appendable text) throws IllegalArgumentException, IOException {
+        decoder().decode(morse, letterSeparator, wordSeparator, text);
+    }
+
+    /**
+     * Converts text to morse code in a single pass, writing it to an {@code Appendable} as it is encoded.
+     * <br> Unlike {@link #toMorseString}, the text is never upper-cased or split as a whole: each character is case-folded
+     * with {@link Character#toUpperCase(char)} and written as soon as it is looked up. Letters are separated by the letter
+     * separator and words by the word separator of this {@code MorseTranslator}, one for each whitespace character
+     * between two words, so the result can be converted back with {@link #fromMorseString}. Trailing whitespace is dropped.
+     *
+     * @param text  the text to be converted, as a {@code CharSequence}
+     * @param morse the {@code Appendable} to write the morse code to
+     * @throws IllegalArgumentException if the text contains a character that is not in the character map, in which case the morse code before it has already been written
+     * @throws IOException              if an IO Exception occurs
+     */
+    public void toMorse(CharSequence text, Appendable morse) throws IllegalArgumentException, IOException {
+        new MorseEncoder(table(), letterSeparator, wordSeparator, morse).encode(text);
+    }
+
+    /**
+     * Converts text read from a {@code Reader} to morse code, as {@link #toMorse(CharSequence, Appendable)} does.
+     * <br> The text is read in blocks, so documents of any length are encoded in bounded memory. Neither the reader nor
+     * the output is closed by this method.
+     *
+     * @param text  the {@code Reader} to read text from
+     * @param morse the {@code Appendable} to write the morse code to
+     * @throws IllegalArgumentException if the text contains a character that is not in the character map, in which case the morse code before it has already been written
+     * @throws IOException              if an IO Exception occurs
+     */
+    public void toMorse(Reader text, Appendable morse) throws IllegalArgumentException, IOException {
+        new MorseEncoder(table(), letterSeparator, wordSeparator, morse).encode(text);
+    }
+
+    /**
+     * Calculates how long the input text takes to send as morse code with the given timing, without rendering any audio.
+     * <br> The text is read once, and each character costs a lookup of its precomputed dit, dah and symbol counts.
+     * Characters are case-folded and whitespace is handled as it is by {@link MorsePlayer}, so the estimate matches its audio exactly.
+     *
+     * @param text            the text to be estimated, as a {@code CharSequence}
+     * @param timing          the {@link IMorseTiming} to send the text with
+     * @param sampleFrequency the sample frequency the audio would be rendered at, in Hertz (Hz)
+     * @return a {@link TransmissionEstimate} of the duration and symbol counts of the text
+     * @throws IllegalArgumentException if the timing is null, or the input contains a character that is not in the character map
+     */
+    public TransmissionEstimate estimate(CharSequence text, IMorseTiming timing, int sampleFrequency) throws IllegalArgumentException {
+        if (timing == null) {
+            throw new IllegalArgumentException("Timing cannot be null");
+        }
+        TransmissionEstimate estimate = TransmissionEstimate.count(text, table(), timing, sampleFrequency);
+        if (estimate == null) {
+            throw new IllegalArgumentException("Failed to validate input: " + validate(text).getSummary());
+        }
+        return estimate;
+    }
 }
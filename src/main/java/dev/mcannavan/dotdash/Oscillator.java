@@ -0,0 +1,87 @@
+package dev.mcannavan.dotdash;
+
+/**
+ * The methods available to a {@link WaveGenerator} for calculating the sine wave of a tone.
+ * <br> The faster oscillators trade a bounded amount of precision for throughput. Accuracy is given as the largest difference
+ * from {@link #EXACT} in a 16-bit sample, measured in least significant bits (LSB) after rounding.
+ */
+public enum Oscillator {
+    /**
+     * Calls {@link Math#sin} for every sample. The slowest oscillator, and the reference for the others.
+     */
+    EXACT {
+        @Override
+        void fill(double[] block, int count, int start, double step) {
+            for (int k = 0; k < count; k++) {
+                block[k] = Math.sin((start + k) * step);
+            }
+        }
+    },
+
+    /**
+     * A phase accumulator reading a 4096 entry sine table with linear interpolation.
+     * Within 1 LSB of {@link #EXACT}, as the interpolation error is under 3 x 10<sup>-7</sup> of full scale.
+     */
+    WAVETABLE {
+        @Override
+        void fill(double[] block, int count, int start, double step) {
+            double increment = step / (2 * Math.PI);
+            double phase = start * increment;
+            phase -= Math.floor(phase); // resynchronised every block so rounding error cannot accumulate
+            increment -= Math.floor(increment);
+            for (int k = 0; k < count; k++) {
+                double position = phase * TABLE_SIZE;
+                int index = (int) position;
+                double fraction = position - index;
+                block[k] = SINE_TABLE[index] + (SINE_TABLE[index + 1] - SINE_TABLE[index]) * fraction;
+                phase += increment;
+                if (phase >= 1.0) {
+                    phase -= 1.0;
+                }
+            }
+        }
+    },
+
+    /**
+     * A recursive resonator, {@code y[n] = 2cos(w)y[n-1] - y[n-2]}, as used by the Goertzel algorithm.
+     * Each block is seeded from two exact samples, so drift is bounded to the block length and the output stays within 1 LSB of {@link #EXACT}.
+     */
+    RESONATOR {
+        @Override
+        void fill(double[] block, int count, int start, double step) {
+            double coefficient = 2 * Math.cos(step);
+            double previous = Math.sin((start - 1) * step);
+            double current = Math.sin(start * step);
+            for (int k = 0; k < count; k++) {
+                block[k] = current;
+                double next = coefficient * current - previous;
+                previous = current;
+                current = next;
+            }
+        }
+    };
+
+    /**
+     * The number of samples calculated at a time. Faster oscillators resynchronise with the exact phase at the start of each block.
+     */
+    static final int BLOCK_SIZE = 512;
+
+    private static final int TABLE_SIZE = 4096;
+    private static final double[] SINE_TABLE = new double[TABLE_SIZE + 1];
+
+    static {
+        for (int i = 0; i <= TABLE_SIZE; i++) {
+            SINE_TABLE[i] = Math.sin(2 * Math.PI * i / TABLE_SIZE);
+        }
+    }
+
+    /**
+     * Fills {@code block} with {@code sin(i * step)} for {@code count} samples starting at sample {@code start}.
+     *
+     * @param block the array to fill, with a length of at least {@code count}
+     * @param count the number of samples to calculate
+     * @param start the index of the first sample
+     * @param step  the change in phase per sample, in radians
+     */
+    abstract void fill(double[] block, int count, int start, double step);
+}
@@ -0,0 +1,74 @@
+package dev.mcannavan.dotdash;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Every setting that affects the audio or the storage of a {@link RenderedCharacters}, used as the key of the {@link SharedRenderCache}.
+ */
+final class RenderKey {
+
+    private final float ditLength;
+    private final float dahLength;
+    private final float intraCharLength;
+    private final float interCharLength;
+    private final float interWordLength;
+    private final double frequency;
+    private final Class<?> generatorType;
+    private final int sampleFrequency;
+    private final Oscillator oscillator;
+    private final boolean periodTiling;
+    private final boolean compactCharacters;
+    private final boolean lazyRendering;
+    private final Map<Character, String> alphabet;
+    private final int hash;
+
+    RenderKey(IMorseTiming timing, double frequency, WaveGenerator waveGenerator,
+              boolean compactCharacters, boolean lazyRendering, Map<Character, String> alphabet) {
+        this.ditLength = timing.getDitLength();
+        this.dahLength = timing.getDahLength();
+        this.intraCharLength = timing.getIntraCharLength();
+        this.interCharLength = timing.getInterCharLength();
+        this.interWordLength = timing.getInterWordLength();
+        this.frequency = frequency;
+        this.generatorType = waveGenerator.getClass();
+        this.sampleFrequency = waveGenerator.getSampleFrequency();
+        this.oscillator = waveGenerator.getOscillator();
+        this.periodTiling = waveGenerator.isPeriodTiling();
+        this.compactCharacters = compactCharacters;
+        this.lazyRendering = lazyRendering;
+        this.alphabet = alphabet;
+        this.hash = Objects.hash(ditLength, dahLength, intraCharLength, interCharLength, interWordLength,
+                frequency, generatorType, sampleFrequency, oscillator, periodTiling, compactCharacters, lazyRendering, alphabet);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RenderKey)) {
+            return false;
+        }
+        RenderKey other = (RenderKey) o;
+        return hash == other.hash
+                && Float.compare(ditLength, other.ditLength) == 0
+                && Float.compare(dahLength, other.dahLength) == 0
+                && Float.compare(intraCharLength, other.intraCharLength) == 0
+                && Float.compare(interCharLength, other.interCharLength) == 0
+                && Float.compare(interWordLength, other.interWordLength) == 0
+                && Double.compare(frequency, other.frequency) == 0
+                && generatorType == other.generatorType
+                && sampleFrequency == other.sampleFrequency
+                && oscillator == other.oscillator
+                && periodTiling == other.periodTiling
+                && compactCharacters == other.compactCharacters
+                && lazyRendering == other.lazyRendering
+                && alphabet.equals(other.alphabet);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,241 @@
+package dev.mcannavan.dotdash;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The pregenerated audio of the characters in an alphabet, and the lengths of the silences between them.
+ * <br> Characters are either stored as rendered audio, rendered up front or lazily the first time each is used, or composed
+ * from shared dit and dah tones each time they are written. Once created the audio of a character never changes and no
+ * array is ever written to, so instances can be shared between {@link MorsePlayer} objects and threads.
+ */
+abstract class RenderedCharacters {
+
+    private static final int MAX_AMPLITUDES = 8;
+
+    private final CharacterRenderer renderer;
+    private final int interCharLength;
+    private final int interWordLength;
+    // the most recently added amplitudes first, replaced as a whole so reads never lock
+    private final AtomicReference<Scaled[]> amplitudes = new AtomicReference<>(new Scaled[0]);
+
+    private RenderedCharacters(CharacterRenderer renderer, int interCharLength, int interWordLength) {
+        this.renderer = renderer;
+        this.interCharLength = interCharLength;
+        this.interWordLength = interWordLength;
+    }
+
+    /**
+     * Renders every character in the renderer's alphabet immediately.
+     * <br> If the estimated length of the alphabet reaches the renderer's parallel threshold, the characters are assembled
+     * in parallel from the shared tones. Each character is rendered independently, so the audio is the same either way.
+     */
+    static RenderedCharacters eager(CharacterRenderer renderer, int interCharLength, int interWordLength) {
+        Map<Character, String> alphabet = renderer.getAlphabet();
+        Map<Character, byte[]> characters = new ConcurrentHashMap<>(alphabet.size() * 2);
+        long toneSamples = renderer.prepareTones() / 2;
+        if (renderer.isParallel(toneSamples * alphabet.size())) {
+            alphabet.keySet().parallelStream().forEach(key -> characters.put(key, renderer.render(key)));
+        } else {
+            for (Character key : alphabet.keySet()) {
+                characters.put(key, renderer.render(key));
+            }
+        }
+        return new Stored(characters, renderer, -1, interCharLength, interWordLength);
+    }
+
+    /**
+     * Renders each character the first time it is requested, memoizing the result. Nothing is rendered on creation.
+     * <br> The instance is weighed up front at the size of the whole alphabet, since a cache weighs an entry only once,
+     * when it is inserted, and a lazy entry fills up afterwards.
+     */
+    static RenderedCharacters lazy(CharacterRenderer renderer, int interCharLength, int interWordLength) {
+        return new Stored(new ConcurrentHashMap<>(), renderer, renderer.getAlphabetWeight(), interCharLength, interWordLength);
+    }
+
+    /**
+     * Stores no audio per character, writing each one as slices of the renderer's shared dit and dah tones and silence.
+     */
+    static RenderedCharacters composed(CharacterRenderer renderer, int interCharLength, int interWordLength) {
+        return new Composed(renderer, interCharLength, interWordLength);
+    }
+
+    /**
+     * Gets the characters at a different amplitude, sharing every setting but the tones with this instance.
+     * <br> Nothing shared is changed: the result is composed from its own pair of tones, scaled from this instance's tones on first use.
+     * The {@value #MAX_AMPLITUDES} most recently added amplitudes are kept in an array that is copied on write, so a volume in use
+     * is found without locking, and alternating between a few volumes scales each pair of tones only once. Two threads
+     * adding the same amplitude at once may each create an instance, and only one of them is kept.
+     *
+     * @param amplitude the amplitude of the tones, up to {@code Short.MAX_VALUE}
+     * @return this instance if the amplitude is unchanged, otherwise a composed instance at the amplitude
+     */
+    RenderedCharacters atAmplitude(double amplitude) {
+        if (Double.compare(amplitude, renderer.getAmplitude()) == 0) {
+            return this;
+        }
+        Scaled[] current = amplitudes.get();
+        RenderedCharacters found = find(current, amplitude);
+        if (found != null) {
+            return found;
+        }
+        Scaled added = new Scaled(amplitude, composed(renderer.withAmplitude(amplitude), interCharLength, interWordLength));
+        while (true) {
+            Scaled[] updated = new Scaled[Math.min(current.length + 1, MAX_AMPLITUDES)];
+            updated[0] = added;
+            System.arraycopy(current, 0, updated, 1, updated.length - 1); //the eldest amplitude is dropped once full
+            if (amplitudes.compareAndSet(current, updated)) {
+                return added.characters;
+            }
+            current = amplitudes.get();
+            found = find(current, amplitude);
+            if (found != null) {
+                return found;
+            }
+        }
+    }
+
+    private static RenderedCharacters find(Scaled[] amplitudes, double amplitude) {
+        for (Scaled scaled : amplitudes) {
+            if (Double.compare(scaled.amplitude, amplitude) == 0) {
+                return scaled.characters;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the sample frequency the audio was generated at.
+     */
+    int getSampleFrequency() {
+        return renderer.getSampleFrequency();
+    }
+
+    /**
+     * Writes the audio of a character.
+     *
+     * @param character the character to write
+     * @param writer    the {@link SegmentWriter} to write to
+     * @return false if the character is not in the alphabet, in which case nothing is written
+     * @throws IOException if an IO Exception occurs
+     */
+    abstract boolean write(char character, SegmentWriter writer) throws IOException;
+
+    /**
+     * Gets the length in bytes of the audio of a character.
+     *
+     * @param character the character to measure
+     * @return the length of the character's audio, or -1 if it is not in the alphabet
+     */
+    abstract long getLength(char character);
+
+    /**
+     * Gets the total length in bytes of the audio this instance can hold, including audio that is rendered only on first use
+     * and the tones of the {@value #MAX_AMPLITUDES} views kept by {@link #atAmplitude}. A cache weighs an entry only once, when
+     * it is added, so the views are counted in full whether or not they have been created yet.
+     */
+    long getWeight() {
+        return getAudioWeight() + MAX_AMPLITUDES * renderer.getToneWeight();
+    }
+
+    /**
+     * Gets the total length in bytes of the audio held by this instance, including audio that is rendered only on first use.
+     */
+    abstract long getAudioWeight();
+
+    /**
+     * Gets the length in bytes of the silence between characters within a word.
+     */
+    int getInterCharLength() {
+        return interCharLength;
+    }
+
+    /**
+     * Gets the length in bytes of the silence between words.
+     */
+    int getInterWordLength() {
+        return interWordLength;
+    }
+
+    private static final class Scaled {
+        private final double amplitude;
+        private final RenderedCharacters characters;
+
+        private Scaled(double amplitude, RenderedCharacters characters) {
+            this.amplitude = amplitude;
+            this.characters = characters;
+        }
+    }
+
+    private static final class Stored extends RenderedCharacters {
+        private final Map<Character, byte[]> characters;
+        private final boolean lazy;
+        private final long lazyWeight; //the size of the whole alphabet once rendered, or -1 if every character is already stored
+
+        private Stored(Map<Character, byte[]> characters, CharacterRenderer renderer, long lazyWeight, int interCharLength, int interWordLength) {
+            super(renderer, interCharLength, interWordLength);
+            this.characters = characters;
+            this.lazy = lazyWeight >= 0;
+            this.lazyWeight = lazyWeight;
+        }
+
+        private byte[] get(char character) {
+            byte[] audio = characters.get(character);
+            if (audio == null && lazy) {
+                audio = characters.computeIfAbsent(character, super.renderer); //not stored if it is not in the alphabet
+            }
+            return audio;
+        }
+
+        @Override
+        boolean write(char character, SegmentWriter writer) throws IOException {
+            byte[] audio = get(character);
+            if (audio == null) {
+                return false;
+            }
+            writer.write(audio, 0, audio.length);
+            return true;
+        }
+
+        @Override
+        long getLength(char character) {
+            byte[] audio = get(character);
+            return audio == null ? -1 : audio.length;
+        }
+
+        @Override
+        long getAudioWeight() {
+            if (lazy) {
+                return lazyWeight;
+            }
+            long total = 0;
+            for (byte[] audio : characters.values()) {
+                total += audio.length;
+            }
+            return total;
+        }
+    }
+
+    private static final class Composed extends RenderedCharacters {
+        private Composed(CharacterRenderer renderer, int interCharLength, int interWordLength) {
+            super(renderer, interCharLength, interWordLength);
+        }
+
+        @Override
+        boolean write(char character, SegmentWriter writer) throws IOException {
+            return super.renderer.compose(character, writer);
+        }
+
+        @Override
+        long getLength(char character) {
+            return super.renderer.getLength(character);
+        }
+
+        @Override
+        long getAudioWeight() {
+            return super.renderer.getToneWeight();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package dev.mcannavan.dotdash;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A destination for the segments of audio that make up a message, written in order.
+ */
+@FunctionalInterface
+interface SegmentWriter {
+
+    /**
+     * Shared, never written, source of silence. Gaps of any length are emitted as repeated slices of this array.
+     */
+    byte[] SILENCE = new byte[64 * 1024];
+
+    /**
+     * Writes a slice of a segment. The segment array must not be modified or retained beyond the slice.
+     *
+     * @param segment the array holding the audio
+     * @param offset  the index of the first byte of the slice
+     * @param length  the number of bytes in the slice
+     * @throws IOException if an IO Exception occurs
+     */
+    void write(byte[] segment, int offset, int length) throws IOException;
+
+    /**
+     * The size of the buffer segments are copied through before they are passed to a caller's stream.
+     */
+    int COPY_BUFFER_SIZE = 8192;
+
+    /**
+     * Creates a writer to a stream that is not owned by this library. Segments are copied through a buffer of
+     * {@value #COPY_BUFFER_SIZE} bytes, so the stream never receives, and cannot change, an array of cached audio or {@link #SILENCE}.
+     *
+     * @param outputStream the {@code OutputStream} to write to
+     * @return a new {@code SegmentWriter} with its own copy buffer
+     */
+    static SegmentWriter copying(OutputStream outputStream) {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        return (segment, offset, length) -> {
+            for (int written = 0; written < length; ) {
+                int count = Math.min(buffer.length, length - written);
+                System.arraycopy(segment, offset + written, buffer, 0, count);
+                outputStream.write(buffer, 0, count);
+                written += count;
+            }
+        };
+    }
+
+    /**
+     * Writes a silence of the given length as slices of {@link #SILENCE}.
+     *
+     * @param length the length of the silence in bytes
+     * @throws IOException if an IO Exception occurs
+     */
+    default void writeSilence(int length) throws IOException {
+        while (length > 0) {
+            int count = Math.min(length, SILENCE.length);
+            write(SILENCE, 0, count);
+            length -= count;
+        }
+    }
+
+    /**
+     * Writes any segments held back by this writer.
+     *
+     * @throws IOException if an IO Exception occurs
+     */
+    default void flush() throws IOException {
+
+    }
+}
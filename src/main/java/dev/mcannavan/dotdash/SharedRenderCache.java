@@ -0,0 +1,98 @@
+package dev.mcannavan.dotdash;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A process-wide, thread-safe cache of pregenerated character audio, shared by every {@link MorsePlayer} built with
+ * {@link MorsePlayer.MorsePlayerBuilder#withSharedCache(boolean)}.
+ * <br> Entries are keyed by the timing lengths, frequency, {@link WaveGenerator} settings and translator alphabet, so
+ * players with the same settings share one immutable copy of the audio. The audio is cached at full volume, and every
+ * other volume is scaled from it, so players at different volumes share an entry too. The cache is bounded by the total
+ * size of the cached audio in bytes, and evicts the least recently used entries first. Entries from players using lazy
+ * rendering are weighed by the size of their whole alphabet, as if every character had already been rendered, and every
+ * entry is weighed with the tones of the few other volumes it keeps scaled, whether or not they are in use yet.
+ */
+public final class SharedRenderCache {
+
+    /**
+     * The default maximum total size of the cached audio, in bytes.
+     */
+    public static final long DEFAULT_MAXIMUM_BYTES = 64L * 1024 * 1024;
+
+    private static volatile Cache<RenderKey, RenderedCharacters> cache = create(DEFAULT_MAXIMUM_BYTES);
+
+    private SharedRenderCache() {
+
+    }
+
+    private static Cache<RenderKey, RenderedCharacters> create(long maximumBytes) {
+        return CacheBuilder.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((RenderKey key, RenderedCharacters value) -> (int) Math.min(Integer.MAX_VALUE, value.getWeight()))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Gets the cached audio for a key, rendering and caching it if it is not present.
+     * Concurrent requests for the same key wait for a single render.
+     */
+    static RenderedCharacters get(RenderKey key, Callable<RenderedCharacters> loader) {
+        try {
+            return cache.get(key, loader);
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Failed to render characters", cause);
+        }
+    }
+
+    /**
+     * Replaces the cache with an empty one bounded to the given total size of audio.
+     *
+     * @param maximumBytes the maximum total size of the cached audio, in bytes
+     * @throws IllegalArgumentException if the maximum is negative
+     */
+    public static void setMaximumBytes(long maximumBytes) throws IllegalArgumentException {
+        if (maximumBytes < 0) {
+            throw new IllegalArgumentException("maximumBytes must be greater than or equal to 0. Actual value: " + maximumBytes);
+        }
+        cache = create(maximumBytes);
+    }
+
+    /**
+     * Gets the hit, miss, load and eviction statistics of the cache since it was created.
+     *
+     * @return a snapshot of the {@code CacheStats}
+     */
+    public static CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Gets the approximate number of alphabets in the cache.
+     *
+     * @return the number of cached entries
+     */
+    public static long size() {
+        return cache.size();
+    }
+
+    /**
+     * Removes every entry from the cache. Players already holding audio from the cache keep it.
+     */
+    public static void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
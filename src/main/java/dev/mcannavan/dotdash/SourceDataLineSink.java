@@ -0,0 +1,74 @@
+package dev.mcannavan.dotdash;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * An {@link IAudioSink} that plays audio through a {@code javax.sound.sampled.SourceDataLine}.
+ */
+public class SourceDataLineSink implements IAudioSink {
+
+    private volatile SourceDataLine line;
+
+    /**
+     * Creates a sink that opens the system's default {@code SourceDataLine} for the format it is opened with.
+     */
+    public SourceDataLineSink() {
+
+    }
+
+    /**
+     * Creates a sink that plays through the given {@code SourceDataLine}.
+     *
+     * @param line the {@code SourceDataLine} to play through
+     * @throws IllegalArgumentException if the line is null
+     */
+    public SourceDataLineSink(SourceDataLine line) throws IllegalArgumentException {
+        if (line == null) {
+            throw new IllegalArgumentException("Line cannot be null");
+        }
+        this.line = line;
+    }
+
+    @Override
+    public void open(AudioFormat format, int bufferSize) throws LineUnavailableException {
+        SourceDataLine line = this.line;
+        if (line == null) {
+            line = AudioSystem.getSourceDataLine(format);
+            this.line = line;
+        }
+        line.open(format, bufferSize);
+    }
+
+    @Override
+    public void start() {
+        line.start();
+    }
+
+    @Override
+    public int write(byte[] bytes, int offset, int length) {
+        return line.write(bytes, offset, length);
+    }
+
+    @Override
+    public void drain() {
+        line.drain();
+    }
+
+    @Override
+    public void flush() {
+        line.flush();
+    }
+
+    @Override
+    public void stop() {
+        line.stop();
+    }
+
+    @Override
+    public void close() {
+        line.close();
+    }
+}
@@ -0,0 +1,98 @@
+package dev.mcannavan.dotdash;
+
+import java.util.Map;
+
+/**
+ * An immutable, compiled lookup table from characters to their morse code sequences, indexed directly by {@code char}.
+ * <br> The table is split into pages of 256 characters, and only the pages containing a mapped character are allocated,
+ * so dense ranges such as Latin letters and digits are looked up with two array reads, while sparse characters elsewhere
+ * in the BMP cost no more than one small page each. Lookups never box or hash the character.
+ * <br> The number of dits, dahs and symbols in each sequence is counted when the table is compiled, for estimates that
+ * need only arithmetic per character.
+ */
+final class TranslationTable {
+
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int COUNT_BITS = 21;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final String[][] pages = new String[(Character.MAX_VALUE >> PAGE_BITS) + 1][];
+    private final long[][] countPages = new long[pages.length][]; //the packed symbol counts of each sequence
+
+    private TranslationTable(Map<Character, String> map) {
+        for (Map.Entry<Character, String> entry : map.entrySet()) {
+            char key = entry.getKey();
+            String[] page = pages[key >>> PAGE_BITS];
+            if (page == null) {
+                page = new String[PAGE_SIZE];
+                pages[key >>> PAGE_BITS] = page;
+                countPages[key >>> PAGE_BITS] = new long[PAGE_SIZE];
+            }
+            page[key & PAGE_MASK] = entry.getValue();
+            countPages[key >>> PAGE_BITS][key & PAGE_MASK] = countSymbols(entry.getValue());
+        }
+    }
+
+    /**
+     * Compiles a table from a snapshot of the given map. Later changes to the map are not reflected in the table.
+     */
+    static TranslationTable compile(Map<Character, String> map) {
+        return new TranslationTable(map);
+    }
+
+    /**
+     * Gets the morse code sequence of a character.
+     *
+     * @param character the character to look up
+     * @return the morse code sequence, or null if the character is not mapped
+     */
+    String get(char character) {
+        String[] page = pages[character >>> PAGE_BITS];
+        return page == null ? null : page[character & PAGE_MASK];
+    }
+
+    boolean contains(char character) {
+        return get(character) != null;
+    }
+
+    private static long countSymbols(String code) {
+        long dits = 0;
+        long dahs = 0;
+        for (int i = 0; i < code.length(); i++) {
+            char symbol = code.charAt(i);
+            if (symbol == '.') {
+                dits++;
+            } else if (symbol == '-') {
+                dahs++;
+            }
+        }
+        return dits | dahs << COUNT_BITS | (long) code.length() << (2 * COUNT_BITS);
+    }
+
+    /**
+     * Gets the packed symbol counts of a character's sequence, to be read with {@link #dits}, {@link #dahs} and {@link #symbols}.
+     *
+     * @return the packed counts, or -1 if the character is not mapped
+     */
+    long getCounts(char character) {
+        long[] page = countPages[character >>> PAGE_BITS];
+        return page == null || pages[character >>> PAGE_BITS][character & PAGE_MASK] == null ? -1 : page[character & PAGE_MASK];
+    }
+
+    static int dits(long counts) {
+        return (int) (counts & COUNT_MASK);
+    }
+
+    static int dahs(long counts) {
+        return (int) (counts >>> COUNT_BITS & COUNT_MASK);
+    }
+
+    /**
+     * Gets the total number of symbols in a sequence, including any that are neither dits nor dahs.
+     */
+    static int symbols(long counts) {
+        return (int) (counts >>> (2 * COUNT_BITS));
+    }
+}
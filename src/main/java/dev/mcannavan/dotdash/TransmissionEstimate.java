@@ -0,0 +1,163 @@
+package dev.mcannavan.dotdash;
+
+/**
+ * The length of a message when it is sent as morse code, calculated without rendering any audio.
+ * <br> Created by {@link MorseTranslator#estimate} and {@link MorsePlayer#estimateTransmission}. Every tone and space is
+ * rounded to whole samples exactly as a {@link MorsePlayer} renders it, so {@link #getSampleCount()} is the exact length of
+ * the rendered audio, not an approximation.
+ */
+public final class TransmissionEstimate {
+
+    private final int sampleFrequency;
+    private final long characters;
+    private final long dits;
+    private final long dahs;
+    private final long intraCharGaps;
+    private final long interCharGaps;
+    private final long interWordGaps;
+    private final long samples;
+
+    private TransmissionEstimate(int sampleFrequency, long characters, long dits, long dahs,
+                                 long intraCharGaps, long interCharGaps, long interWordGaps, long samples) {
+        this.sampleFrequency = sampleFrequency;
+        this.characters = characters;
+        this.dits = dits;
+        this.dahs = dahs;
+        this.intraCharGaps = intraCharGaps;
+        this.interCharGaps = interCharGaps;
+        this.interWordGaps = interWordGaps;
+        this.samples = samples;
+    }
+
+    /**
+     * Counts the tones and spaces of a message in a single pass over the text, using the symbol counts compiled into the table.
+     * The text is split into characters and gaps by a {@link MessageTokenizer}, exactly as it is when audio is rendered.
+     *
+     * @return the estimate, or null if the text contains a character that is not in the table
+     */
+    static TransmissionEstimate count(CharSequence text, TranslationTable table, IMorseTiming timing, int sampleFrequency) {
+        Counter counter = new Counter(table);
+        if (counter.tokenize(text) >= 0) {
+            return null;
+        }
+        long samples = counter.dits * sampleCount(timing.getDitLength(), sampleFrequency)
+                + counter.dahs * sampleCount(timing.getDahLength(), sampleFrequency)
+                + counter.intraCharGaps * sampleCount(timing.getIntraCharLength(), sampleFrequency)
+                + counter.interCharGaps * sampleCount(timing.getInterCharLength(), sampleFrequency)
+                + counter.interWordGaps * sampleCount(timing.getInterWordLength(), sampleFrequency);
+        return new TransmissionEstimate(sampleFrequency, counter.characters, counter.dits, counter.dahs,
+                counter.intraCharGaps, counter.interCharGaps, counter.interWordGaps, samples);
+    }
+
+    /**
+     * Gets the number of samples in a tone or space, matching {@link WaveGenerator#getSampleCount}.
+     */
+    private static long sampleCount(float lengthMillis, int sampleFrequency) {
+        return lengthMillis > 0 ? (int) (lengthMillis / 1000 * sampleFrequency) : 0;
+    }
+
+    private static final class Counter extends MessageTokenizer<RuntimeException> {
+        private final TranslationTable table;
+        private long counts; //of the character being counted
+        private long characters;
+        private long dits;
+        private long dahs;
+        private long intraCharGaps;
+        private long interCharGaps;
+        private long interWordGaps;
+
+        private Counter(TranslationTable table) {
+            this.table = table;
+        }
+
+        @Override
+        boolean lookup(char character) {
+            counts = table.getCounts(character);
+            return counts >= 0;
+        }
+
+        @Override
+        void wordGap() {
+            interWordGaps++;
+        }
+
+        @Override
+        void charGap() {
+            interCharGaps++;
+        }
+
+        @Override
+        void character(char character) {
+            characters++;
+            dits += TranslationTable.dits(counts);
+            dahs += TranslationTable.dahs(counts);
+            intraCharGaps += Math.max(0, TranslationTable.symbols(counts) - 1);
+        }
+    }
+
+    /**
+     * Gets the sample frequency the estimate was calculated for, in Hertz (Hz).
+     */
+    public int getSampleFrequency() {
+        return sampleFrequency;
+    }
+
+    /**
+     * Gets the number of characters sent, not counting whitespace.
+     */
+    public long getCharacterCount() {
+        return characters;
+    }
+
+    public long getDitCount() {
+        return dits;
+    }
+
+    public long getDahCount() {
+        return dahs;
+    }
+
+    /**
+     * Gets the total number of dits and dahs.
+     */
+    public long getSymbolCount() {
+        return dits + dahs;
+    }
+
+    /**
+     * Gets the number of spaces between the symbols of a character.
+     */
+    public long getIntraCharGapCount() {
+        return intraCharGaps;
+    }
+
+    /**
+     * Gets the number of spaces between characters within a word.
+     */
+    public long getInterCharGapCount() {
+        return interCharGaps;
+    }
+
+    /**
+     * Gets the number of spaces between words.
+     */
+    public long getInterWordGapCount() {
+        return interWordGaps;
+    }
+
+    /**
+     * Gets the exact number of samples in the rendered audio.
+     */
+    public long getSampleCount() {
+        return samples;
+    }
+
+    /**
+     * Gets the exact duration of the rendered audio, in milliseconds.
+     *
+     * @return the number of samples divided by the sample frequency, in milliseconds, or 0 if the sample frequency is not positive
+     */
+    public double getDurationMillis() {
+        return sampleFrequency > 0 ? samples * 1000.0 / sampleFrequency : 0;
+    }
+}
@@ -0,0 +1,83 @@
+package dev.mcannavan.dotdash;
+
+import java.util.Arrays;
+
+/**
+ * The result of validating text against the character map of a {@link MorseTranslator}, from {@link MorseTranslator#validate}.
+ * <br> Invalid characters are recorded in the order they appear, by their index in the validated text.
+ */
+public final class ValidationResult {
+
+    /**
+     * The maximum number of invalid characters listed by {@link #getSummary()}.
+     */
+    public static final int MAX_SUMMARY_ENTRIES = 10;
+
+    private final int[] indices;
+    private final char[] characters;
+
+    ValidationResult(int[] indices, char[] characters) {
+        this.indices = indices;
+        this.characters = characters;
+    }
+
+    /**
+     * Checks whether the text can be translated to morse code.
+     *
+     * @return true if the text contains no invalid characters
+     */
+    public boolean isValid() {
+        return indices.length == 0;
+    }
+
+    /**
+     * Gets the number of invalid characters in the text.
+     */
+    public int getInvalidCount() {
+        return indices.length;
+    }
+
+    /**
+     * Gets the indices of the invalid characters in the text, in ascending order.
+     *
+     * @return a new {@code int[]} of indices
+     */
+    public int[] getInvalidIndices() {
+        return Arrays.copyOf(indices, indices.length);
+    }
+
+    /**
+     * Gets the invalid characters, in the same order as {@link #getInvalidIndices()}.
+     *
+     * @return a new {@code char[]} of the invalid characters as they appear in the text
+     */
+    public char[] getInvalidCharacters() {
+        return Arrays.copyOf(characters, characters.length);
+    }
+
+    /**
+     * Gets a readable list of the first {@value #MAX_SUMMARY_ENTRIES} invalid characters and their indices, followed by
+     * the number of any others, so the summary stays short however much of the text is invalid.
+     *
+     * @return the summary as a {@code String}, or an empty {@code String} if the text is valid
+     */
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        int listed = Math.min(indices.length, MAX_SUMMARY_ENTRIES);
+        for (int i = 0; i < listed; i++) {
+            if (i > 0) {
+                summary.append(", ");
+            }
+            summary.append('\'').append(characters[i]).append("' at index ").append(indices[i]);
+        }
+        if (indices.length > listed) {
+            summary.append(" and ").append(indices.length - listed).append(" more");
+        }
+        return summary.toString();
+    }
+
+    @Override
+    public String toString() {
+        return isValid() ? "valid" : "invalid: " + getSummary();
+    }
+}
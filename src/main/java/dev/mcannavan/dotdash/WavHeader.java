@@ -0,0 +1,79 @@
+package dev.mcannavan.dotdash;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Builds the 44 byte header of a PCM wav file.
+ */
+final class WavHeader {
+
+    /**
+     * The length of the header in bytes.
+     */
+    static final int SIZE = 44;
+
+    /**
+     * The largest audio data length that can be described by a wav header.
+     */
+    static final long MAX_DATA_SIZE = 0xFFFFFFFFL - (SIZE - 8);
+
+    private static final int FMT_CHUNK_SIZE = 16;
+    private static final short PCM_FORMAT = 1;
+
+    private WavHeader() {
+
+    }
+
+    /**
+     * Creates a header for audio data of the given length, ready to be read from position 0.
+     *
+     * @param sampleFrequency the sample frequency of the audio in Hertz (Hz)
+     * @param nChannels       the number of audio channels
+     * @param bitsPerSample   the number of bits in each sample
+     * @param dataSize        the length of the audio data in bytes
+     * @return a little-endian {@code ByteBuffer} containing the header
+     * @throws IllegalArgumentException if the data size cannot be described by a wav header
+     */
+    static ByteBuffer create(int sampleFrequency, int nChannels, int bitsPerSample, long dataSize) throws IllegalArgumentException {
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+        put(buffer, sampleFrequency, nChannels, bitsPerSample, dataSize);
+        ((Buffer) buffer).flip(); //Buffer.flip() links on Java 8, where ByteBuffer.flip() does not exist
+        return buffer;
+    }
+
+    /**
+     * Writes a header for audio data of the given length into a buffer at its current position.
+     *
+     * @param buffer          the {@code ByteBuffer} to write to, with at least {@link #SIZE} bytes remaining
+     * @param sampleFrequency the sample frequency of the audio in Hertz (Hz)
+     * @param nChannels       the number of audio channels
+     * @param bitsPerSample   the number of bits in each sample
+     * @param dataSize        the length of the audio data in bytes
+     * @throws IllegalArgumentException if the data size cannot be described by a wav header
+     */
+    static void put(ByteBuffer buffer, int sampleFrequency, int nChannels, int bitsPerSample, long dataSize) throws IllegalArgumentException {
+        if (dataSize < 0 || dataSize > MAX_DATA_SIZE) {
+            throw new IllegalArgumentException("Audio data size must be between 0 and " + MAX_DATA_SIZE + " bytes. Actual value: " + dataSize);
+        }
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.put((byte) 'R').put((byte) 'I').put((byte) 'F').put((byte) 'F');
+        buffer.putInt((int) (dataSize + SIZE - 8)); // sound data + 44 header bytes - 8 bytes for previous bytes
+        buffer.put((byte) 'W').put((byte) 'A').put((byte) 'V').put((byte) 'E');
+        buffer.put((byte) 'f').put((byte) 'm').put((byte) 't').put((byte) ' ');
+        buffer.putInt(FMT_CHUNK_SIZE);
+        buffer.putShort(PCM_FORMAT);
+        buffer.putShort((short) nChannels);
+        buffer.putInt(sampleFrequency);
+        buffer.putInt(sampleFrequency * bitsPerSample * nChannels / 8);
+        buffer.putShort((short) (nChannels * bitsPerSample / 8));
+        buffer.putShort((short) bitsPerSample);
+        buffer.put((byte) 'd').put((byte) 'a').put((byte) 't').put((byte) 'a');
+        buffer.putInt((int) dataSize);
+
+        buffer.order(order);
+    }
+}
@@ -1,14 +1,20 @@
 package dev.mcannavan.dotdash;
 
-import java.nio.ByteBuffer;
+import java.util.concurrent.RecursiveAction;
 
 //TODO:
 // - add Javadocs
-// - add Unit Testing
 public class WaveGenerator {
 
     private int sampleFrequency = 44100;
     private final int N_CHANNELS = 1;
+    private Oscillator oscillator = Oscillator.EXACT;
+    private boolean periodTiling = false;
+    private boolean frozen = false; //true for the copies made by frozenCopyOf, which never change
+
+    private static final int MAX_TILE_CYCLES = 100;
+    private static final double MAX_TILE_ERROR = 0.5; // LSB, so a copied sample rounds at most 1 LSB away from the calculated one
+    private static final int PARALLEL_CHUNK_SAMPLES = 16 * Oscillator.BLOCK_SIZE;
 
     public WaveGenerator() {
 
@@ -18,6 +24,11 @@ public class WaveGenerator {
         this.sampleFrequency = sampleFrequency;
     }
 
+    public WaveGenerator(int sampleFrequency, Oscillator oscillator) {
+        this.sampleFrequency = sampleFrequency;
+        setOscillator(oscillator);
+    }
+
     public int getNChannels() {
         return this.N_CHANNELS;
     }
@@ -27,43 +38,238 @@ public class WaveGenerator {
     }
 
     public void setSampleFrequency(int sampleFrequency) {
+        checkNotFrozen();
         this.sampleFrequency = sampleFrequency;
     }
 
-    protected byte[] generateTone(float duration, double frequency, double amplitude) throws IllegalArgumentException {
+    public Oscillator getOscillator() {
+        return this.oscillator;
+    }
+
+    /**
+     * Sets the method used to calculate the sine wave of generated tones.
+     *
+     * @param oscillator the {@link Oscillator} to use
+     * @throws IllegalArgumentException if the oscillator is null
+     */
+    public void setOscillator(Oscillator oscillator) throws IllegalArgumentException {
+        if (oscillator == null) {
+            throw new IllegalArgumentException("Oscillator cannot be null");
+        }
+        checkNotFrozen();
+        this.oscillator = oscillator;
+    }
+
+    public boolean isPeriodTiling() {
+        return this.periodTiling;
+    }
+
+    /**
+     * Sets whether tones are generated by period tiling.
+     * <br> When enabled, only the fade-in, the fade-out and one cycle-aligned block of the steady part of a tone are calculated,
+     * and the block is copied over the rest of the steady part. Samples may differ from a fully calculated tone by at most 1 LSB,
+     * from rounding of the phase; a block is only used if the phase error it builds up over the whole tone stays within that. Tones whose frequency has no cycle-aligned block of at most 100 cycles are calculated in full.
+     *
+     * @param periodTiling true to tile the steady part of tones, false to calculate every sample
+     */
+    public void setPeriodTiling(boolean periodTiling) {
+        checkNotFrozen();
+        this.periodTiling = periodTiling;
+    }
+
+    /**
+     * Gets a copy of a generator's current settings that can never be changed, so tones generated later match the sample
+     * frequency, oscillator and tiling they were planned with.
+     * <br> Subclasses may change how tones are generated, which cannot be copied, so they are returned as they are.
+     *
+     * @param generator the {@code WaveGenerator} to copy
+     * @return an unchangeable {@code WaveGenerator} with the same settings, or the generator itself if it is a subclass or already unchangeable
+     */
+    static WaveGenerator frozenCopyOf(WaveGenerator generator) {
+        if (generator.frozen || generator.getClass() != WaveGenerator.class) {
+            return generator;
+        }
+        WaveGenerator copy = new WaveGenerator(generator.sampleFrequency, generator.oscillator);
+        copy.periodTiling = generator.periodTiling;
+        copy.frozen = true;
+        return copy;
+    }
+
+    private void checkNotFrozen() throws IllegalStateException {
+        if (frozen) {
+            throw new IllegalStateException("The settings of a frozen WaveGenerator cannot be changed");
+        }
+    }
+
+    /**
+     * Gets the number of samples in a tone of the given duration, matching the length of {@link #generateTone}.
+     *
+     * @param duration the duration in seconds
+     * @return the number of samples
+     * @throws IllegalArgumentException if the duration is not greater than 0
+     */
+    public int getSampleCount(float duration) throws IllegalArgumentException {
         if(duration <= 0) {
             throw new IllegalArgumentException("Duration must be greater than 0");
         }
+        return (int) (duration * sampleFrequency * N_CHANNELS);
+    }
+
+    protected byte[] generateTone(float duration, double frequency, double amplitude) throws IllegalArgumentException {
+        int numSamples = getSampleCount(duration);
+        byte[] result = new byte[numSamples*2];
+        if (amplitude > 0) {
+            if (!periodTiling || !synthesizeTiled(result, numSamples, duration, frequency, amplitude)) {
+                synthesize(result, 0, numSamples, numSamples, duration, frequency, amplitude);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Generates a tone as {@link #generateTone(float, double, double)} does, splitting the samples into chunks calculated in parallel
+     * on the common fork-join pool when the tone has at least {@code parallelThreshold} samples.
+     * <br> Chunks start on oscillator block boundaries, so every sample is calculated exactly as it would be sequentially and the
+     * result is byte-identical. Tiled and silent tones are already cheap, and are always generated sequentially.
+     *
+     * @param parallelThreshold the minimum number of samples in a tone for it to be split, at least 1
+     */
+    byte[] generateTone(float duration, double frequency, double amplitude, int parallelThreshold) throws IllegalArgumentException {
+        int numSamples = getSampleCount(duration);
+        if (periodTiling || amplitude <= 0 || numSamples < Math.max(parallelThreshold, 2 * PARALLEL_CHUNK_SAMPLES)) {
+            return generateTone(duration, frequency, amplitude);
+        }
+        byte[] result = new byte[numSamples * 2];
+        new SynthesisTask(result, 0, numSamples, numSamples, duration, frequency, amplitude).invoke();
+        return result;
+    }
+
+    /**
+     * Calculates a range of samples, splitting it in half at a block boundary until each part is at most one chunk long.
+     */
+    private final class SynthesisTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] result;
+        private final int from;
+        private final int to;
+        private final int numSamples;
+        private final float duration;
+        private final double frequency;
+        private final double amplitude;
+
+        private SynthesisTask(byte[] result, int from, int to, int numSamples, float duration, double frequency, double amplitude) {
+            this.result = result;
+            this.from = from;
+            this.to = to;
+            this.numSamples = numSamples;
+            this.duration = duration;
+            this.frequency = frequency;
+            this.amplitude = amplitude;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_CHUNK_SAMPLES) {
+                synthesize(result, from, to, numSamples, duration, frequency, amplitude);
+                return;
+            }
+            int middle = from + (to - from) / 2 / Oscillator.BLOCK_SIZE * Oscillator.BLOCK_SIZE;
+            invokeAll(new SynthesisTask(result, from, middle, numSamples, duration, frequency, amplitude),
+                    new SynthesisTask(result, middle, to, numSamples, duration, frequency, amplitude));
+        }
+    }
+
+    /**
+     * Calculates the fade-in, one period of the steady part and the fade-out of a tone, and fills the rest of the steady part by copying the period.
+     *
+     * @return false if the tone has no period short enough to tile, in which case nothing is written
+     */
+    private boolean synthesizeTiled(byte[] result, int numSamples, float duration, double frequency, double amplitude) {
+        // the steady part is where the fade is exactly 1.0, matching the fade limits in synthesize
+        int bodyStart = (int) Math.ceil(duration * 0.075 * sampleFrequency);
+        int bodyEnd = Math.min(numSamples, (int) Math.floor(numSamples - (duration * 0.08 * sampleFrequency)) + 1);
+        int period = findPeriod(frequency, bodyEnd - bodyStart, amplitude);
+        if (period <= 0) {
+            return false;
+        }
 
+        synthesize(result, 0, bodyStart + period, numSamples, duration, frequency, amplitude);
+        int source = bodyStart * 2;
+        int length = (bodyEnd - bodyStart) * 2;
+        int filled = period * 2;
+        while (filled < length) { // doubling copies keep each destination aligned to a whole number of periods
+            int count = Math.min(filled, length - filled);
+            System.arraycopy(result, source, result, source + filled, count);
+            filled += count;
+        }
+        synthesize(result, bodyEnd, numSamples, numSamples, duration, frequency, amplitude);
+        return true;
+    }
+
+    /**
+     * Finds the smallest number of samples spanning a whole number of cycles of the given frequency, closely enough that
+     * tiling it over the steady part of the tone stays within 1 LSB of calculating every sample.
+     * <br> Each copy of a period that is not an exact number of cycles shifts the phase by the same amount, so the shift
+     * grows with the number of copies. A period is only accepted if the shift after the last copy, scaled by the amplitude,
+     * is under {@value #MAX_TILE_ERROR} LSB.
+     *
+     * @param bodySamples the number of samples in the steady part of the tone
+     * @return the period in samples, or 0 if there is none of at most half the steady part and {@value #MAX_TILE_CYCLES} cycles
+     */
+    private int findPeriod(double frequency, int bodySamples, double amplitude) {
+        double samplesPerCycle = sampleFrequency * N_CHANNELS / frequency;
+        for (int cycles = 1; cycles <= MAX_TILE_CYCLES; cycles++) {
+            double samples = samplesPerCycle * cycles;
+            if (samples > bodySamples / 2) {
+                return 0;
+            }
+            long rounded = Math.round(samples);
+            if (rounded > 0) {
+                double drift = 2 * Math.PI * cycles * Math.abs(samples - rounded) / samples; // phase shift per copy, in radians
+                long copies = bodySamples / rounded;
+                if (drift * copies * amplitude < MAX_TILE_ERROR) {
+                    return (int) rounded;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Writes samples {@code from} (inclusive) to {@code to} (exclusive) of a faded sine tone into {@code result} as 16-bit little-endian PCM.
+     * <br> The fade limits are calculated once per call, and the sine wave is calculated a block at a time by the {@link Oscillator}.
+     */
+    private void synthesize(byte[] result, int from, int to, int numSamples, float duration, double frequency, double amplitude) {
         final double FADE_IN_DURATION = duration * 0.075;
         final double FADE_OUT_DURATION = duration * 0.08;
 
-        int numSamples = (int) (duration * sampleFrequency * N_CHANNELS);
-        byte[] result = new byte[numSamples*2];
-        int head = 0;
+        final double fadeInSamples = FADE_IN_DURATION * sampleFrequency;
+        final double fadeOutSamples = FADE_OUT_DURATION * sampleFrequency;
+        final double fadeOutStart = numSamples - fadeOutSamples;
+        final double step = 2 * Math.PI * frequency / sampleFrequency / N_CHANNELS;
 
-        double step = 2 * Math.PI * frequency / sampleFrequency / N_CHANNELS;
-        for (int i = 0; i < numSamples; i++) {
-            float sampleValue;
-            if(amplitude > 0) {
-                double fade = 1.0;
+        final Oscillator oscillator = this.oscillator;
+        double[] block = new double[Math.min(Oscillator.BLOCK_SIZE, to - from)];
 
-                if (i < FADE_IN_DURATION * sampleFrequency) {
-                    fade = i / (FADE_IN_DURATION * sampleFrequency);
-                } else if (i > numSamples - (FADE_OUT_DURATION * sampleFrequency)) {
-                    fade = 1.0 - ((i - (numSamples - (FADE_OUT_DURATION * sampleFrequency))) / (FADE_OUT_DURATION * sampleFrequency));
+        int head = from * 2;
+        for (int start = from; start < to; start += block.length) {
+            int count = Math.min(block.length, to - start);
+            oscillator.fill(block, count, start, step);
+            for (int k = 0; k < count; k++) {
+                int i = start + k;
+                double fade = 1.0;
+                if (i < fadeInSamples) {
+                    fade = i / fadeInSamples;
+                } else if (i > fadeOutStart) {
+                    fade = 1.0 - ((i - fadeOutStart) / fadeOutSamples);
                 }
-                sampleValue = (float) (amplitude * Math.sin(i * step) * fade );
-            } else {
-                sampleValue = 0;
-            }
-            byte[] temp = ByteBuffer.allocate(2).putShort(Short.reverseBytes((short) Math.round(sampleValue))).array();
-            for(byte b : temp) {
-                result[head] = b;
-                head++;
+                float sampleValue = (float) (amplitude * block[k] * fade);
+                short sample = (short) Math.round(sampleValue);
+                result[head++] = (byte) sample;
+                result[head++] = (byte) (sample >> 8);
             }
         }
-        return result;
     }
 
 }
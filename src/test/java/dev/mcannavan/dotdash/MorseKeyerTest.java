@@ -0,0 +1,114 @@
+package dev.mcannavan.dotdash;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MorseKeyerTest {
+
+    private MorsePlayer player;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        player = new MorsePlayer.MorsePlayerBuilder().build();
+    }
+
+    @Test
+    void poll_charactersAppendedOneAtATime_matchesWholeMessage() throws IOException {
+        MorseKeyer keyer = player.openKeyer(80);
+        ByteArrayOutputStream keyed = new ByteArrayOutputStream();
+        for (char character : "sos  paris".toCharArray()) {
+            assertTrue(keyer.append(character));
+            keyed.write(keyer.poll().toByteArray());
+        }
+        assertArrayEquals(player.generateMorseAudioBytes("SOS  PARIS", 80), keyed.toByteArray());
+    }
+
+    @Test
+    void poll_gapsAreWrittenOnlyBeforeTheNextCharacter() throws IOException {
+        MorseKeyer keyer = player.openKeyer(100);
+        assertEquals(0, keyer.poll().length());
+
+        keyer.append("E ");
+        assertEquals(player.generateMorseAudioBytes("E", 100).length, keyer.poll().length());
+        assertEquals(0, keyer.poll().length()); // the word space waits for the next word
+
+        keyer.append('T');
+        long expected = player.generateMorseAudioBytes("E T", 100).length - player.generateMorseAudioBytes("E", 100).length;
+        assertEquals(expected, keyer.poll().length());
+        assertEquals(0, keyer.getQueuedCount());
+    }
+
+    @Test
+    void poll_maxCharacters_rendersAtMostThatMany() throws IOException {
+        MorseKeyer keyer = player.openKeyer(100);
+        keyer.append("SOS");
+        ByteArrayOutputStream keyed = new ByteArrayOutputStream();
+        keyed.write(keyer.poll(2).toByteArray());
+        assertEquals(1, keyer.getQueuedCount());
+        keyed.write(keyer.poll(2).toByteArray());
+        assertArrayEquals(player.generateMorseAudioBytes("SOS", 100), keyed.toByteArray());
+        assertThrows(IllegalArgumentException.class, () -> keyer.poll(0));
+    }
+
+    @Test
+    void append_invalidCharacter_throwsAndQueuesNothing() {
+        MorseKeyer keyer = player.openKeyer(100);
+        assertThrows(IllegalArgumentException.class, () -> keyer.append('~'));
+        assertThrows(IllegalArgumentException.class, () -> keyer.append("SOS ~"));
+        assertEquals(0, keyer.getQueuedCount());
+    }
+
+    @Test
+    void append_queueFull_acceptsUpToCapacity() {
+        MorseKeyer keyer = player.openKeyer(100, 3);
+        assertEquals(4, keyer.getCapacity());
+        assertEquals(4, keyer.append("ABCDEF"));
+        assertFalse(keyer.append('A'));
+        keyer.poll(1);
+        assertTrue(keyer.append('A'));
+    }
+
+    @Test
+    void openKeyer_invalidCapacity_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> player.openKeyer(100, 0));
+        assertThrows(IllegalArgumentException.class, () -> player.openKeyer(100, CharRingBuffer.MAX_CAPACITY + 1));
+    }
+
+    @Test
+    void poll_concurrentProducer_receivesEveryCharacterInOrder() throws Exception {
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            message.append("THE QUICK BROWN FOX ");
+        }
+        String text = message.toString().trim();
+        MorseKeyer keyer = player.openKeyer(100, 16);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> producer = executor.submit(() -> {
+                for (int i = 0; i < text.length(); i++) {
+                    while (!keyer.append(text.charAt(i))) {
+                        Thread.yield();
+                    }
+                }
+            });
+            ByteArrayOutputStream keyed = new ByteArrayOutputStream();
+            while (!producer.isDone() || keyer.getQueuedCount() > 0) {
+                keyed.write(keyer.poll(5).toByteArray());
+            }
+            producer.get(10, TimeUnit.SECONDS);
+            assertArrayEquals(player.generateMorseAudioBytes(text, 100), keyed.toByteArray());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package dev.mcannavan.dotdash;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MorsePlaybackTest {
+
+    private MorsePlayer player;
+    private FakeSink sink;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        player = new MorsePlayer.MorsePlayerBuilder().build();
+        sink = new FakeSink();
+    }
+
+    @Test
+    void constructor_invalidArguments_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new MorsePlayback(null, sink, 1024));
+        assertThrows(IllegalArgumentException.class, () -> new MorsePlayback(player, null, 1024));
+        assertThrows(IllegalArgumentException.class, () -> new MorsePlayback(player, sink, 2));
+        assertThrows(IllegalArgumentException.class, () -> new MorsePlayback(player, sink, 1023));
+    }
+
+    @Test
+    void start_opensSinkWithPlayerFormatAndBufferSize() throws Exception {
+        try (MorsePlayback playback = new MorsePlayback(player, sink, 1024)) {
+            playback.start();
+            assertTrue(playback.isRunning());
+            assertEquals(1024, sink.bufferSize);
+            assertEquals(player.getWaveGenerator().getSampleFrequency(), sink.format.getSampleRate(), 0.0001);
+            assertEquals(16, sink.format.getSampleSizeInBits());
+            assertEquals(1, sink.format.getChannels());
+            assertFalse(sink.format.isBigEndian());
+            assertTrue(sink.started);
+            assertThrows(IllegalStateException.class, playback::start);
+        }
+        assertTrue(sink.closed);
+    }
+
+    @Test
+    void play_queuedMessages_writesAudioInOrderInBoundedChunks() throws Exception {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(player.generateMorseAudioBytes("SOS", 100));
+        expected.write(player.generateMorseAudioBytes("HELLO WORLD", 50));
+
+        try (MorsePlayback playback = new MorsePlayback(player, sink, 1024)) {
+            playback.start();
+            playback.play("SOS", 100);
+            playback.play("HELLO WORLD", 50);
+            playback.drain();
+            assertTrue(sink.drained);
+        }
+        assertArrayEquals(expected.toByteArray(), sink.written.toByteArray());
+        assertTrue(sink.largestWrite <= 512);
+    }
+
+    @Test
+    void play_sinkAcceptsPartialWrites_writesEveryByte() throws Exception {
+        sink.maxWrite = 100;
+        try (MorsePlayback playback = new MorsePlayback(player, sink, 1024)) {
+            playback.start();
+            playback.play("SOS", 100);
+            playback.drain();
+        }
+        assertArrayEquals(player.generateMorseAudioBytes("SOS", 100), sink.written.toByteArray());
+        assertTrue(sink.largestWrite <= 100);
+    }
+
+    @Test
+    void play_firstMessage_isWrittenWithoutWaitingForDrain() throws Exception {
+        sink.firstWrite = new CountDownLatch(1);
+        try (MorsePlayback playback = new MorsePlayback(player, sink, 1024)) {
+            playback.start();
+            playback.play("PARIS PARIS PARIS", 100);
+            assertTrue(sink.firstWrite.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void play_invalidMessage_throwsWithoutQueueing() throws Exception {
+        try (MorsePlayback playback = new MorsePlayback(player, sink, 1024)) {
+            playback.start();
+            assertThrows(IllegalArgumentException.class, () -> playback.play("SOS ~", 100));
+            playback.drain();
+        }
+        assertEquals(0, sink.written.size());
+    }
+
+    @Test
+    void play_notStarted_throwsIllegalStateException() {
+        MorsePlayback playback = new MorsePlayback(player, sink, 1024);
+        assertThrows(IllegalStateException.class, () -> playback.play("SOS", 100));
+    }
+
+    @Test
+    void flush_discardsQueuedMessagesAndKeepsRunning() throws Exception {
+        sink.gate = new CountDownLatch(1);
+        try (MorsePlayback playback = new MorsePlayback(player, sink, 1024)) {
+            playback.start();
+            playback.play("SOS", 100);
+            playback.play("SOS SOS SOS", 100);
+            playback.flush();
+            assertTrue(sink.flushed);
+            sink.gate.countDown();
+            playback.drain();
+            assertTrue(playback.isRunning());
+            assertTrue(sink.written.size() <= 512);
+
+            sink.gate = null;
+            int before = sink.written.size();
+            playback.play("E", 100);
+            playback.drain();
+            assertEquals(before + player.generateMorseAudioBytes("E", 100).length, sink.written.size());
+        }
+    }
+
+    @Test
+    void stop_blockedWrite_stopsAndClosesSink() throws Exception {
+        sink.gate = new CountDownLatch(1);
+        MorsePlayback playback = new MorsePlayback(player, sink, 1024);
+        playback.start();
+        playback.play("SOS SOS SOS", 100);
+        playback.stop();
+        assertFalse(playback.isRunning());
+        assertTrue(sink.stopped);
+        assertTrue(sink.closed);
+        assertThrows(IllegalStateException.class, () -> playback.play("SOS", 100));
+
+        playback.start();
+        assertTrue(playback.isRunning());
+        playback.stop();
+    }
+
+    @Test
+    void play_sinkFails_recordsFailureAndStops() throws Exception {
+        sink.failure = new IllegalStateException("line lost");
+        try (MorsePlayback playback = new MorsePlayback(player, sink, 1024)) {
+            playback.start();
+            playback.play("SOS", 100);
+            playback.drain();
+            assertFalse(playback.isRunning());
+            assertSame(sink.failure, playback.getFailure());
+            IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> playback.play("SOS", 100));
+            assertSame(sink.failure, thrown.getCause());
+        }
+        assertTrue(sink.closed);
+    }
+
+    /**
+     * A sink that records what is written to it, accepting at most maxWrite bytes per write. When a gate is set, writes block
+     * until it opens or the sink is flushed.
+     */
+    private static class FakeSink implements IAudioSink {
+        private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        private volatile AudioFormat format;
+        private volatile int bufferSize;
+        private volatile int largestWrite;
+        private volatile boolean started, drained, flushed, stopped, closed;
+        private volatile CountDownLatch gate;
+        private volatile CountDownLatch firstWrite;
+        private volatile RuntimeException failure;
+        private volatile int maxWrite = Integer.MAX_VALUE;
+
+        @Override
+        public void open(AudioFormat format, int bufferSize) {
+            this.format = format;
+            this.bufferSize = bufferSize;
+            this.stopped = false;
+            this.closed = false;
+        }
+
+        @Override
+        public void start() {
+            started = true;
+        }
+
+        @Override
+        public int write(byte[] bytes, int offset, int length) {
+            if (failure != null) {
+                throw failure;
+            }
+            CountDownLatch gate = this.gate;
+            if (gate != null) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (flushed) {
+                    return 0;
+                }
+            }
+            length = Math.min(length, maxWrite);
+            synchronized (written) {
+                written.write(bytes, offset, length);
+            }
+            largestWrite = Math.max(largestWrite, length);
+            if (firstWrite != null) {
+                firstWrite.countDown();
+            }
+            return length;
+        }
+
+        @Override
+        public void drain() {
+            drained = true;
+        }
+
+        @Override
+        public void flush() {
+            flushed = true;
+            CountDownLatch gate = this.gate;
+            if (gate != null) {
+                gate.countDown();
+            }
+        }
+
+        @Override
+        public void stop() {
+            stopped = true;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
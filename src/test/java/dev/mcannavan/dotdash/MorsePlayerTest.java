@@ -3,11 +3,29 @@ package dev.mcannavan.dotdash;
 import static org.mockito.Mockito.*;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
+import com.google.common.io.ByteStreams;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -136,4 +154,498 @@ class MorsePlayerTest {
     void setTranslator_withNullInput_throwsIllegalArgumentException() {
         assertThrows(IllegalArgumentException.class, () -> morsePlayer.setTranslator(null));
     }
-}
\ No newline at end of file
+
+    @Test
+    void writeMorseAudio_toOutputStreamAndChannel_matchesGeneratedAudio() throws IOException {
+        MorsePlayer player = new MorsePlayer.MorsePlayerBuilder().build();
+        byte[] expected = player.generateMorseAudio("SOS SOS", 100).toByteArray();
+
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        player.writeMorseAudio("SOS SOS", 100, streamed);
+        assertArrayEquals(expected, streamed.toByteArray());
+
+        ByteArrayOutputStream channelled = new ByteArrayOutputStream();
+        player.writeMorseAudio("SOS SOS", 100, Channels.newChannel(channelled));
+        assertArrayEquals(expected, channelled.toByteArray());
+    }
+
+    @Test
+    void writeMorseAudio_withInvalidInput_throwsIllegalArgumentException() throws IOException {
+        MorsePlayer player = new MorsePlayer.MorsePlayerBuilder().build();
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        assertThrows(IllegalArgumentException.class, () -> player.writeMorseAudio("SOS ~", 100, streamed));
+        assertEquals(0, streamed.size());
+    }
+
+    @Test
+    void writeWavFileData_withValidInput_matchesGeneratedWavData() throws IOException {
+        MorsePlayer player = new MorsePlayer.MorsePlayerBuilder().build();
+        byte[] audio = player.generateMorseAudio("PARIS", 100).toByteArray();
+        byte[] expected = player.generateWavFileData(player.generateMorseAudio("PARIS", 100)).toByteArray();
+
+        ByteBuffer header = ByteBuffer.wrap(expected, 0, 44).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(audio.length + 36, header.getInt(4));
+        assertEquals(44100, header.getInt(24));
+        assertEquals(audio.length, header.getInt(40));
+
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        player.writeWavFileData("PARIS", 100, streamed);
+        assertArrayEquals(expected, streamed.toByteArray());
+    }
+
+    @Test
+    void writeWavFileData_toSeekableChannel_patchesHeader(@TempDir Path directory) throws IOException {
+        MorsePlayer player = new MorsePlayer.MorsePlayerBuilder().build();
+        byte[] expected = player.generateWavFileData(player.generateMorseAudio("PARIS PARIS", 100)).toByteArray();
+
+        Path file = directory.resolve("patched.wav");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            player.writeWavFileData("PARIS PARIS", 100, channel);
+        }
+        assertArrayEquals(expected, Files.readAllBytes(file));
+    }
+
+    @Test
+    void saveMorseToWavFile_fromText_matchesGeneratedWavData(@TempDir Path directory) throws IOException {
+        MorsePlayer player = new MorsePlayer.MorsePlayerBuilder().build();
+        byte[] expected = player.generateWavFileData(player.generateMorseAudio("CQ CQ DE", 100)).toByteArray();
+
+        player.saveMorseToWavFile("CQ CQ DE", 100, directory.toString(), "text");
+        assertArrayEquals(expected, Files.readAllBytes(directory.resolve("text.wav")));
+
+        player.saveMorseToWavFile(player.generateMorseAudio("CQ CQ DE", 100), directory.toString(), "stream.wav");
+        assertArrayEquals(expected, Files.readAllBytes(directory.resolve("stream.wav")));
+
+        assertThrows(IllegalArgumentException.class, () -> player.saveMorseToWavFile("CQ ~", 100, directory.toString(), "invalid"));
+        assertFalse(Files.exists(directory.resolve("invalid.wav")));
+    }
+
+    @Test
+    void writeMorseAudio_toFileChannel_writesEverySegment(@TempDir Path directory) throws IOException {
+        MorsePlayer player = new MorsePlayer.MorsePlayerBuilder().build();
+        String text = "THE QUICK BROWN FOX JUMPS OVER THE LAZY DOG 1234567890";
+        byte[] expected = player.generateMorseAudio(text, 100).toByteArray();
+
+        Path file = directory.resolve("gathered.pcm");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            player.writeMorseAudio(text, 100, channel);
+        }
+        assertArrayEquals(expected, Files.readAllBytes(file));
+    }
+
+    @Test
+    void generateMorseSegments_withValidInput_matchesGeneratedAudio(@TempDir Path directory) throws IOException {
+        MorsePlayer player = new MorsePlayer.MorsePlayerBuilder().build();
+        byte[] expected = player.generateMorseAudio("SOS HELP", 100).toByteArray();
+
+        AudioSegments segments = player.generateMorseSegments("SOS HELP", 100);
+        assertEquals(13, segments.size()); // 7 characters, 5 inter-char spaces, 1 inter-word space
+        assertEquals(expected.length, segments.length());
+        assertArrayEquals(expected, segments.toByteArray());
+        assertArrayEquals(expected, ByteStreams.toByteArray(segments.asInputStream()));
+        assertTrue(segments.toByteBuffers()[0].isReadOnly());
+
+        Path file = directory.resolve("segments.pcm");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            assertEquals(expected.length, segments.writeTo(channel));
+        }
+        assertArrayEquals(expected, Files.readAllBytes(file));
+    }
+
+    @Test
+    void writeTo_withStreamThatChangesItsInput_leavesCachedAudioUnchanged() throws IOException {
+        MorsePlayer player = new MorsePlayer.MorsePlayerBuilder().build();
+        byte[] expected = player.generateMorseAudioBytes("SOS SOS", 100);
+        OutputStream vandal = new OutputStream() {
+            @Override
+            public void write(int b) {
+
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                Arrays.fill(b, off, off + len, (byte) 7);
+            }
+        };
+        player.generateMorseSegments("SOS SOS", 100).writeTo(vandal);
+        player.writeMorseAudio("SOS SOS", 100, vandal);
+        player.writeWavFileData("SOS SOS", 100, vandal);
+        assertArrayEquals(expected, player.generateMorseAudioBytes("SOS SOS", 100));
+    }
+
+    @Test
+    void computeAudioLength_withValidInput_matchesGeneratedAudio() throws IOException {
+        MorsePlayer player = new MorsePlayer.MorsePlayerBuilder().build();
+        byte[] expected = player.generateMorseAudio("Lorem ipsum dolor", 100).toByteArray();
+
+        assertEquals(expected.length, player.computeAudioLength("Lorem ipsum dolor"));
+        assertArrayEquals(expected, player.generateMorseAudioBytes("Lorem ipsum dolor", 100));
+        assertThrows(IllegalArgumentException.class, () -> player.computeAudioLength("Lorem ~"));
+    }
+
+    @Test
+    void generateMorseSegments_withLongGaps_emitsSilenceWithoutStoringIt() throws IOException {
+        MorsePlayer player = new MorsePlayer.MorsePlayerBuilder()
+                .withTiming(MorseTimingFactory.createFarnsworthTimingFromWpm(3, 12))
+                .build();
+        byte[] expected = player.generateMorseAudio("E E", 100).toByteArray();
+
+        AudioSegments segments = player.generateMorseSegments("E E", 100);
+        assertTrue(segments.size() > 3, "a gap longer than the shared silence should be split into several slices");
+        assertArrayEquals(expected, segments.toByteArray());
+
+        int gapStart = (int) player.computeAudioLength("E");
+        int gapEnd = expected.length - gapStart;
+        for (int i = gapStart; i < gapEnd; i++) {
+            assertEquals(0, expected[i]);
+        }
+    }
+
+    @Test
+    void builder_withSharedCache_reusesRenderedCharactersAcrossPlayers() throws IOException {
+        SharedRenderCache.invalidateAll();
+        IMorseTiming timing = MorseTimingFactory.createParisTimingFromWpm(17);
+        long hits = SharedRenderCache.stats().hitCount();
+        long misses = SharedRenderCache.stats().missCount();
+
+        MorsePlayer first = new MorsePlayer.MorsePlayerBuilder().withTiming(timing).withSharedCache(true).build();
+        MorsePlayer second = new MorsePlayer.MorsePlayerBuilder().withTiming(timing).withSharedCache(true).build();
+        assertTrue(second.isUsingSharedCache());
+        assertEquals(misses + 1, SharedRenderCache.stats().missCount());
+        assertEquals(hits + 1, SharedRenderCache.stats().hitCount());
+
+        MorsePlayer unshared = new MorsePlayer.MorsePlayerBuilder().withTiming(timing).build();
+        assertArrayEquals(unshared.generateMorseAudioBytes("CQ DX", 100), second.generateMorseAudioBytes("CQ DX", 100));
+
+        second.setFrequency(600);
+        assertEquals(misses + 2, SharedRenderCache.stats().missCount());
+        assertFalse(Arrays.equals(first.generateMorseAudioBytes("CQ", 100), second.generateMorseAudioBytes("CQ", 100)));
+    }
+
+    @Test
+    void builder_withSharedCacheAndLazyRendering_weighsWholeAlphabetOnInsertion() throws IOException {
+        SharedRenderCache.setMaximumBytes(1);
+        try {
+            long evictions = SharedRenderCache.stats().evictionCount();
+            for (int i = 0; i < 50; i++) {
+                new MorsePlayer.MorsePlayerBuilder().withFrequency(500 + i).withSharedCache(true).withLazyRendering(true).build();
+            }
+            assertEquals(0, SharedRenderCache.size());
+            assertEquals(evictions + 50, SharedRenderCache.stats().evictionCount());
+        } finally {
+            SharedRenderCache.setMaximumBytes(SharedRenderCache.DEFAULT_MAXIMUM_BYTES);
+        }
+    }
+
+    @Test
+    void builder_withSharedCacheAndCompactCharacters_weighsTonesOnInsertion() throws IOException {
+        SharedRenderCache.setMaximumBytes(1);
+        try {
+            long evictions = SharedRenderCache.stats().evictionCount();
+            for (int i = 0; i < 50; i++) {
+                new MorsePlayer.MorsePlayerBuilder().withFrequency(500 + i).withSharedCache(true).withCompactCharacters(true).build();
+            }
+            assertEquals(0, SharedRenderCache.size());
+            assertEquals(evictions + 50, SharedRenderCache.stats().evictionCount());
+        } finally {
+            SharedRenderCache.setMaximumBytes(SharedRenderCache.DEFAULT_MAXIMUM_BYTES);
+        }
+    }
+
+    @Test
+    void build_thenWaveGeneratorChanges_tonesKeepSettingsTheyWerePlannedWith() throws IOException {
+        MorsePlayer reference = new MorsePlayer.MorsePlayerBuilder().build();
+        byte[] expected = reference.generateMorseAudioBytes("E", 100);
+        byte[] expectedLoud = reference.generateMorseAudioBytes("E", 150);
+        for (boolean compact : new boolean[]{false, true}) {
+            SharedRenderCache.invalidateAll();
+            WaveGenerator generator = new WaveGenerator();
+            MorsePlayer first = new MorsePlayer.MorsePlayerBuilder().withWaveGenerator(generator)
+                    .withSharedCache(true).withLazyRendering(true).withCompactCharacters(compact).build();
+            generator.setSampleFrequency(8000);
+            generator.setOscillator(Oscillator.WAVETABLE);
+            generator.setPeriodTiling(true);
+
+            MorsePlayer second = new MorsePlayer.MorsePlayerBuilder()
+                    .withSharedCache(true).withLazyRendering(true).withCompactCharacters(compact).build();
+            assertArrayEquals(expected, second.generateMorseAudioBytes("E", 100), "compact: " + compact);
+            assertArrayEquals(expected, first.generateMorseAudioBytes("E", 100), "compact: " + compact);
+            assertArrayEquals(expectedLoud, first.generateMorseAudioBytes("E", 150), "compact: " + compact);
+            assertEquals(44100, first.estimateTransmission("E").getSampleFrequency());
+        }
+    }
+
+    @Test
+    void builder_withSharedCache_keepsLazyAndEagerEntriesApart() throws IOException {
+        SharedRenderCache.invalidateAll();
+        long misses = SharedRenderCache.stats().missCount();
+        MorsePlayer lazy = new MorsePlayer.MorsePlayerBuilder().withSharedCache(true).withLazyRendering(true).build();
+        MorsePlayer eager = new MorsePlayer.MorsePlayerBuilder().withSharedCache(true).build();
+        assertEquals(misses + 2, SharedRenderCache.stats().missCount());
+        assertArrayEquals(eager.generateMorseAudioBytes("CQ DX", 100), lazy.generateMorseAudioBytes("CQ DX", 100));
+    }
+
+    @Test
+    void builder_withLazyRendering_rendersCharactersOnFirstUse() throws IOException {
+        WaveGenerator generator = spy(new WaveGenerator());
+        MorsePlayer lazy = new MorsePlayer.MorsePlayerBuilder()
+                .withWaveGenerator(generator)
+                .withLazyRendering(true)
+                .build();
+        assertTrue(lazy.isLazyRendering());
+        verify(generator, never()).generateTone(anyFloat(), anyDouble(), anyDouble());
+
+        MorsePlayer eager = new MorsePlayer.MorsePlayerBuilder().build();
+        assertArrayEquals(eager.generateMorseAudioBytes("Lazy dog 42", 100), lazy.generateMorseAudioBytes("Lazy dog 42", 100));
+        assertArrayEquals(eager.generateMorseAudioBytes("Lazy dog 42", 100), lazy.generateMorseAudioBytes("Lazy dog 42", 100));
+        verify(generator, times(2)).generateTone(anyFloat(), anyDouble(), anyDouble()); //one dit and one dah, shared by every character
+    }
+
+    @Test
+    void builder_withCompactCharacters_matchesRenderedCharacters() throws IOException {
+        IMorseTiming timing = MorseTimingFactory.createFarnsworthTimingFromWpm(10, 18);
+        MorsePlayer rendered = new MorsePlayer.MorsePlayerBuilder().withTiming(timing).build();
+        MorsePlayer compact = new MorsePlayer.MorsePlayerBuilder().withTiming(timing).withCompactCharacters(true).build();
+        assertTrue(compact.isCompactCharacters());
+
+        String text = "Compact 0123456789 ?!";
+        assertArrayEquals(rendered.generateMorseAudioBytes(text, 100), compact.generateMorseAudioBytes(text, 100));
+        assertArrayEquals(rendered.generateMorseAudioBytes(text, 55), compact.generateMorseAudioBytes(text, 55));
+        assertArrayEquals(rendered.generateMorseAudio(text, 100).toByteArray(), compact.generateMorseSegments(text, 100).toByteArray());
+    }
+
+    @Test
+    void generateMorseAudioBytes_fromManyThreadsWhileReconfiguring_matchesASingleConfiguration() throws Exception {
+        String text = "Snapshot 73";
+        int[] volumes = {25, 60, 100};
+        MorsePlayer player = new MorsePlayer.MorsePlayerBuilder().withFrequency(750).build();
+        MorsePlayer high = new MorsePlayer.MorsePlayerBuilder().withFrequency(750).build();
+        MorsePlayer low = new MorsePlayer.MorsePlayerBuilder().withFrequency(600).build();
+        byte[][] expectedHigh = new byte[volumes.length][];
+        byte[][] expectedLow = new byte[volumes.length][];
+        for (int i = 0; i < volumes.length; i++) {
+            expectedHigh[i] = high.generateMorseAudioBytes(text, volumes[i]);
+            expectedLow[i] = low.generateMorseAudioBytes(text, volumes[i]);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> renders = new ArrayList<>();
+            for (int task = 0; task < 48; task++) {
+                int index = task % volumes.length;
+                renders.add(executor.submit(() -> {
+                    byte[] audio = player.generateMorseAudioBytes(text, volumes[index]);
+                    assertTrue(Arrays.equals(expectedHigh[index], audio) || Arrays.equals(expectedLow[index], audio),
+                            "audio at volume " + volumes[index] + " mixes two configurations");
+                    return null;
+                }));
+            }
+            for (int i = 0; i < 6; i++) {
+                player.setFrequency(i % 2 == 0 ? 600 : 750);
+            }
+            for (Future<?> render : renders) {
+                render.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertArrayEquals(expectedHigh[1], player.generateMorseAudioBytes(text, 60));
+    }
+
+    @Test
+    void generateMorseAudioBytes_withAlternatingVolumes_scalesFullVolumeTones() throws IOException {
+        WaveGenerator generator = spy(new WaveGenerator());
+        MorsePlayer player = new MorsePlayer.MorsePlayerBuilder().withWaveGenerator(generator).build();
+        for (int volume : new int[]{40, 70, 40, 100, 70, 0}) {
+            player.generateMorseAudioBytes("E", volume);
+        }
+        verify(generator, times(2)).generateTone(anyFloat(), anyDouble(), anyDouble()); //only the full volume dit and dah
+
+        byte[] expected = new WaveGenerator().generateTone(player.getTiming().getDitLength() / 1000, player.getFrequency(),
+                (double) 40 / 100 * Short.MAX_VALUE);
+        byte[] actual = player.generateMorseAudioBytes("E", 40);
+        for (int i = 0; i < expected.length; i += 2) {
+            short e = (short) ((expected[i] & 0xFF) | (expected[i + 1] << 8));
+            short a = (short) ((actual[i] & 0xFF) | (actual[i + 1] << 8));
+            assertTrue(Math.abs(e - a) <= 1, "sample " + i / 2 + " differs by " + (e - a));
+        }
+    }
+
+    @Test
+    void generateMorseAudioBytes_withManyVolumesFromManyThreads_matchesSingleThreadedAudio() throws Exception {
+        MorsePlayer player = new MorsePlayer.MorsePlayerBuilder().build();
+        int[] volumes = new int[12]; // more than the amplitudes kept, so some are evicted and added again
+        byte[][] expected = new byte[volumes.length][];
+        MorsePlayer reference = new MorsePlayer.MorsePlayerBuilder().build();
+        for (int i = 0; i < volumes.length; i++) {
+            volumes[i] = 5 + i * 7;
+            expected[i] = reference.generateMorseAudioBytes("PARIS", volumes[i]);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int offset = t;
+                results.add(executor.submit(() -> {
+                    for (int n = 0; n < 50; n++) {
+                        int i = (n + offset) % volumes.length;
+                        assertArrayEquals(expected[i], player.generateMorseAudioBytes("PARIS", volumes[i]));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void renderBatch_withMixedItems_reportsEachFailureAndMatchesSequentialOutput(@TempDir Path directory) throws Exception {
+        MorsePlayer player = new MorsePlayer.MorsePlayerBuilder().build();
+        List<BatchItem> items = new ArrayList<>();
+        List<ByteArrayOutputStream> outputs = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            outputs.add(output);
+            items.add(i % 2 == 0 ? BatchItem.audio("CQ DE " + i, output) : BatchItem.wav("TEST " + i, output));
+        }
+        items.add(BatchItem.audio("bad ~ input", new ByteArrayOutputStream()));
+        items.add(BatchItem.wavFile("Drill 5", directory.toString(), "drill"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        BatchSummary summary;
+        try {
+            summary = player.renderBatch(items, 70, executor, 3);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(22, summary.getTotal());
+        assertEquals(21, summary.getSucceeded());
+        assertFalse(summary.isSuccessful());
+        assertEquals(1, summary.getFailures().size());
+        assertInstanceOf(IllegalArgumentException.class, summary.getFailures().get(20));
+
+        long expectedBytes = 0;
+        for (int i = 0; i < 20; i++) {
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            if (i % 2 == 0) {
+                player.writeMorseAudio("CQ DE " + i, 70, expected);
+                expectedBytes += expected.size();
+            } else {
+                player.writeWavFileData("TEST " + i, 70, expected);
+                expectedBytes += expected.size() - 44;
+            }
+            assertArrayEquals(expected.toByteArray(), outputs.get(i).toByteArray());
+        }
+        ByteArrayOutputStream expectedFile = new ByteArrayOutputStream();
+        player.writeWavFileData("Drill 5", 70, expectedFile);
+        expectedBytes += expectedFile.size() - 44;
+        assertArrayEquals(expectedFile.toByteArray(), Files.readAllBytes(directory.resolve("drill.wav")));
+        assertEquals(expectedBytes, summary.getBytesWritten());
+    }
+
+    @Test
+    void submitBatch_withInvalidArguments_throwsIllegalArgumentException() throws IOException {
+        MorsePlayer player = new MorsePlayer.MorsePlayerBuilder().build();
+        List<BatchItem> items = new ArrayList<>();
+        assertThrows(IllegalArgumentException.class, () -> player.submitBatch(items, 100, Runnable::run, 0));
+        assertThrows(IllegalArgumentException.class, () -> player.submitBatch(items, 100, null, 1));
+        assertThrows(IllegalArgumentException.class, () -> BatchItem.audio(null, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void submitBatch_interruptedWhileWaiting_cancelsSubmittedItems() throws IOException {
+        MorsePlayer player = new MorsePlayer.MorsePlayerBuilder().build();
+        List<BatchItem> items = new ArrayList<>();
+        List<ByteArrayOutputStream> outputs = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            outputs.add(output);
+            items.add(BatchItem.audio("CQ " + i, output));
+        }
+        List<Runnable> queued = new ArrayList<>();
+        Executor executor = task -> {
+            queued.add(task);
+            if (queued.size() == 2) {
+                Thread.currentThread().interrupt(); // while the third item waits for a permit
+            }
+        };
+
+        assertThrows(InterruptedException.class, () -> player.submitBatch(items, 100, executor, 2));
+
+        assertEquals(2, queued.size());
+        for (Runnable task : queued) {
+            task.run();
+        }
+        for (ByteArrayOutputStream output : outputs) {
+            assertEquals(0, output.size());
+        }
+    }
+
+    @Test
+    void builder_withParallelRendering_matchesSequentialRendering() throws IOException {
+        IMorseTiming timing = MorseTimingFactory.createFarnsworthTimingFromWpm(2, 5);
+        MorsePlayer sequential = new MorsePlayer.MorsePlayerBuilder().withTiming(timing).build();
+        MorsePlayer parallel = new MorsePlayer.MorsePlayerBuilder().withTiming(timing).withParallelRendering(1).build();
+        assertEquals(1, parallel.getParallelThreshold());
+        assertEquals(0, sequential.getParallelThreshold());
+
+        String text = "Parallel 0123456789 ?!";
+        assertArrayEquals(sequential.generateMorseAudioBytes(text, 100), parallel.generateMorseAudioBytes(text, 100));
+        assertArrayEquals(sequential.generateMorseAudioBytes(text, 35), parallel.generateMorseAudioBytes(text, 35));
+    }
+
+    @Test
+    void generateMorseAudioBytes_afterTranslatorChanges_rendersNewCharacters() throws IOException {
+        MorseTranslator translator = new MorseTranslator().addMap(CharacterSet.LATIN);
+        MorsePlayer player = new MorsePlayer.MorsePlayerBuilder().withTranslator(translator).build();
+        byte[] before = player.generateMorseAudioBytes("E", 100);
+
+        translator.addPair('\u00C9', "..-..");
+        translator.replacePair('E', "...-.");
+        MorsePlayer rebuilt = new MorsePlayer.MorsePlayerBuilder().withTranslator(translator).build();
+        assertArrayEquals(rebuilt.generateMorseAudioBytes("\u00C9 E", 100), player.generateMorseAudioBytes("\u00C9 E", 100));
+        assertFalse(Arrays.equals(before, player.generateMorseAudioBytes("E", 100)));
+    }
+
+    @Test
+    void generateMorseAudioBytes_withInvalidInput_reportsInvalidCharactersInOrder() throws IOException {
+        MorsePlayer player = new MorsePlayer.MorsePlayerBuilder().build();
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> player.generateMorseAudioBytes("SOS ~ CQ <>", 100));
+        assertEquals("Invalid Morse Code: '~' at index 4, '<' at index 9, '>' at index 10", exception.getMessage());
+    }
+
+    @Test
+    void generateMorseAudioBytes_withMixedWhitespace_treatsEachAsAWordSpace() throws IOException {
+        MorsePlayer player = new MorsePlayer.MorsePlayerBuilder().build();
+        byte[] spaces = player.generateMorseAudioBytes(" cq  de k ", 100);
+        assertArrayEquals(spaces, player.generateMorseAudioBytes("\tCQ\n\rDE k\n", 100));
+        assertEquals(spaces.length, player.computeAudioLength(" CQ  DE K"));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertThrows(IllegalArgumentException.class, () -> player.writeMorseAudio("CQ DE ~", 100, output));
+        assertEquals(0, output.size()); //validated before anything is written
+    }
+
+    @Test
+    void estimateTransmission_withAnyTiming_matchesRenderedAudio() throws IOException {
+        String text = "CQ CQ de  M0ABC k?";
+        IMorseTiming[] timings = {MorseTimingFactory.createParisTimingFromWpm(13), MorseTimingFactory.createFarnsworthTimingFromWpm(7, 18)};
+        for (IMorseTiming timing : timings) {
+            for (int sampleFrequency : new int[]{8000, 44100}) {
+                MorsePlayer player = new MorsePlayer.MorsePlayerBuilder()
+                        .withTiming(timing)
+                        .withWaveGenerator(new WaveGenerator(sampleFrequency))
+                        .build();
+                TransmissionEstimate estimate = player.estimateTransmission(text);
+                assertEquals(player.generateMorseAudioBytes(text, 100).length, estimate.getSampleCount() * 2);
+                assertEquals(estimate.getSampleCount() * 1000.0 / sampleFrequency, estimate.getDurationMillis(), 1e-9);
+            }
+        }
+    }
+}
@@ -3,6 +3,9 @@ package dev.mcannavan.dotdash;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -97,4 +100,171 @@ class MorseTranslatorTest {
     void toMorseString_inputInvalidText_returnsException() {
         assertThrows(IllegalArgumentException.class, () -> morseTranslator.toMorseString("ABCDE"));
     }
+
+    @Test
+    void toMorseString_withSparseCharacters_usesCompiledTable() {
+        morseTranslator.addPair('\u00C4', ".-.-");
+        morseTranslator.addPair('\u4E00', "--..--");
+        morseTranslator.addPair('\uFFFF', "...---");
+        assertTrue(morseTranslator.validateInput("AB \u00E4\u4E00\uFFFF"));
+        assertEquals(".- / -... // .-.- / --..-- / ...---", morseTranslator.toMorseString("AB \u00E4\u4E00\uFFFF"));
+        assertFalse(morseTranslator.containsCharacter('\u4E01'));
+        assertEquals(2 + 4 + 4 + 6 + 6, morseTranslator.symbolCount("AB \u00C4\u4E00\uFFFF"));
+    }
+
+    @Test
+    void replacePair_afterTranslating_updatesCompiledTable() {
+        assertEquals(".-", morseTranslator.toMorseString("a"));
+        morseTranslator.replacePair('A', ".--");
+        assertEquals(".--", morseTranslator.toMorseString("a"));
+        assertFalse(morseTranslator.validateInput("D"));
+        morseTranslator.addPair('D', "-..");
+        assertTrue(morseTranslator.validateInput("D"));
+    }
+
+    @Test
+    void fromMorseString_withSeparators_returnsText() {
+        assertEquals("AB CAB", morseTranslator.fromMorseString(".- -... / -.-. .- -..."));
+        morseTranslator.setLetterSeparator("|");
+        morseTranslator.setWordSeparator("||");
+        assertEquals("AB C", morseTranslator.fromMorseString(".-|-...||-.-."));
+    }
+
+    @Test
+    void fromMorseString_withUnknownSequence_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> morseTranslator.fromMorseString(".- ...."));
+        assertThrows(IllegalArgumentException.class, () -> morseTranslator.fromMorseString(".- -..x"));
+        assertThrows(IllegalArgumentException.class, () -> morseTranslator.fromMorseString("-.-.-"));
+    }
+
+    @Test
+    void fromMorse_fromLongReader_matchesFromMorseString() throws IOException {
+        morseTranslator.addMap(CharacterSet.ARABIC_NUMERALS);
+        StringBuilder morse = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            morse.append(i == 0 ? "" : " / ").append(".- -.-. ----- ..---");
+            expected.append(i == 0 ? "" : " ").append("AC02");
+        }
+        StringBuilder text = new StringBuilder();
+        morseTranslator.fromMorse(new StringReader(morse.toString()), text);
+        assertEquals(expected.toString(), text.toString());
+        assertEquals(expected.toString(), morseTranslator.fromMorseString(morse));
+    }
+
+    @Test
+    void toMorse_withValidText_writesSeparatedMorse() throws IOException {
+        StringBuilder morse = new StringBuilder();
+        morseTranslator.toMorse("ab  Cab\t", morse);
+        assertEquals(".- -... /  / -.-. .- -...", morse.toString());
+        assertEquals("AB  CAB", morseTranslator.fromMorseString(morse));
+    }
+
+    @Test
+    void toMorse_fromLongReader_matchesCharSequence() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            text.append(i % 7 == 0 ? "\n" : " ").append("cab");
+        }
+        StringWriter fromReader = new StringWriter();
+        morseTranslator.toMorse(new StringReader(text.toString()), fromReader);
+        StringBuilder fromSequence = new StringBuilder();
+        morseTranslator.toMorse(text, fromSequence);
+        assertEquals(fromSequence.toString(), fromReader.toString());
+        assertEquals(text.toString().toUpperCase().replace('\n', ' '), morseTranslator.fromMorseString(fromReader.toString()));
+    }
+
+    @Test
+    void toMorse_withInvalidText_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> morseTranslator.toMorse("ABD", new StringBuilder()));
+    }
+
+    @Test
+    void getMap_untilMapChanges_returnsCachedSnapshot() {
+        long count = morseTranslator.getModificationCount();
+        assertSame(morseTranslator.getMap(), morseTranslator.getMap());
+        assertEquals(count, morseTranslator.getModificationCount());
+
+        morseTranslator.replacePair('Z', "--..");
+        assertEquals(count, morseTranslator.getModificationCount()); //no pair was replaced
+
+        Map<Character, String> before = morseTranslator.getMap();
+        morseTranslator.addPair('D', "-..");
+        assertEquals(count + 1, morseTranslator.getModificationCount());
+        assertNotSame(before, morseTranslator.getMap());
+        assertFalse(before.containsKey('D'));
+        assertEquals("-..", morseTranslator.getMap().get('D'));
+    }
+
+    @Test
+    void addMap_withoutChanges_keepsCachedSnapshot() {
+        morseTranslator.addMap(CharacterSet.LATIN);
+        long count = morseTranslator.getModificationCount();
+        Map<Character, String> before = morseTranslator.getMap();
+
+        morseTranslator.addMap(new HashMap<>());
+        morseTranslator.addMap(CharacterSet.LATIN);
+        morseTranslator.addMap(CharacterSet.LATIN.getCharacterSet());
+        assertEquals(count, morseTranslator.getModificationCount());
+        assertSame(before, morseTranslator.getMap());
+
+        morseTranslator.addMap(CharacterSet.ARABIC_NUMERALS);
+        assertEquals(count + 1, morseTranslator.getModificationCount());
+    }
+
+    @Test
+    void findInvalidSymbols_withCharactersThatExpandWhenUpperCased_agreesWithValidate() {
+        String text = "\uFB01X \u00DF";
+        assertFalse(morseTranslator.validateInput(text));
+        ValidationResult result = morseTranslator.validate(text);
+        Map<Integer, Character> invalid = morseTranslator.findInvalidSymbols(text);
+        assertArrayEquals(result.getInvalidIndices(), invalid.keySet().stream().mapToInt(Integer::intValue).toArray());
+        assertEquals(Character.valueOf('\uFB01'), invalid.get(0));
+        assertEquals(Character.valueOf('\u00DF'), invalid.get(3));
+        assertTrue(morseTranslator.findInvalidSymbols("ab").isEmpty());
+    }
+
+    @Test
+    void validate_withInvalidCharacters_returnsOrderedIndices() {
+        ValidationResult result = morseTranslator.validate("aXb Yc?");
+        assertFalse(result.isValid());
+        assertArrayEquals(new int[]{1, 4, 6}, result.getInvalidIndices());
+        assertArrayEquals(new char[]{'X', 'Y', '?'}, result.getInvalidCharacters());
+        assertEquals("'X' at index 1, 'Y' at index 4, '?' at index 6", result.getSummary());
+        assertTrue(morseTranslator.validate("Ab c").isValid());
+    }
+
+    @Test
+    void validate_withManyInvalidCharacters_boundsSummary() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            text.append('z');
+        }
+        ValidationResult result = morseTranslator.validate(text);
+        assertEquals(100000, result.getInvalidCount());
+        assertTrue(result.getSummary().endsWith(" and " + (100000 - ValidationResult.MAX_SUMMARY_ENTRIES) + " more"));
+        assertTrue(result.getSummary().length() < 300);
+    }
+
+    @Test
+    void removeInvalidSymbols_withSeveralInvalidCharacters_removesEachOne() {
+        assertEquals("ab Cba", morseTranslator.removeInvalidSymbols("xaxb? Cxbxa!"));
+        String valid = "abc cab";
+        assertSame(valid, morseTranslator.removeInvalidSymbols(valid));
+    }
+
+    @Test
+    void estimate_withValidText_countsSymbolsAndGaps() {
+        TransmissionEstimate estimate = morseTranslator.estimate("ab  c ", MorseTimingFactory.createParisTimingFromWpm(20), 1000);
+        assertEquals(3, estimate.getCharacterCount());
+        assertEquals(1 + 3 + 2, estimate.getDitCount());
+        assertEquals(1 + 1 + 2, estimate.getDahCount());
+        assertEquals(10, estimate.getSymbolCount());
+        assertEquals(1 + 3 + 3, estimate.getIntraCharGapCount());
+        assertEquals(1, estimate.getInterCharGapCount());
+        assertEquals(2, estimate.getInterWordGapCount());
+        // at 20 wpm a dit is 60ms, so 60 samples at 1000Hz: 6 dits, 4 dahs, 7 intra-char, 1 inter-char and 2 inter-word gaps
+        assertEquals(60 * (6 + 3 * 4 + 7 + 3 + 7 * 2), estimate.getSampleCount());
+        assertThrows(IllegalArgumentException.class, () -> morseTranslator.estimate("abd", MorseTimingFactory.createParisTimingFromWpm(20), 1000));
+    }
 }
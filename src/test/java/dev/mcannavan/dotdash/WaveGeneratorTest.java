@@ -0,0 +1,159 @@
+package dev.mcannavan.dotdash;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WaveGeneratorTest {
+
+    /**
+     * The original per-sample implementation of {@link WaveGenerator#generateTone}, kept as a reference for the optimised kernels.
+     */
+    private static byte[] referenceTone(int sampleFrequency, float duration, double frequency, double amplitude) {
+        final double FADE_IN_DURATION = duration * 0.075;
+        final double FADE_OUT_DURATION = duration * 0.08;
+
+        int numSamples = (int) (duration * sampleFrequency);
+        byte[] result = new byte[numSamples * 2];
+        int head = 0;
+
+        double step = 2 * Math.PI * frequency / sampleFrequency;
+        for (int i = 0; i < numSamples; i++) {
+            float sampleValue;
+            if (amplitude > 0) {
+                double fade = 1.0;
+
+                if (i < FADE_IN_DURATION * sampleFrequency) {
+                    fade = i / (FADE_IN_DURATION * sampleFrequency);
+                } else if (i > numSamples - (FADE_OUT_DURATION * sampleFrequency)) {
+                    fade = 1.0 - ((i - (numSamples - (FADE_OUT_DURATION * sampleFrequency))) / (FADE_OUT_DURATION * sampleFrequency));
+                }
+                sampleValue = (float) (amplitude * Math.sin(i * step) * fade);
+            } else {
+                sampleValue = 0;
+            }
+            byte[] temp = ByteBuffer.allocate(2).putShort(Short.reverseBytes((short) Math.round(sampleValue))).array();
+            for (byte b : temp) {
+                result[head] = b;
+                head++;
+            }
+        }
+        return result;
+    }
+
+    @Test
+    void generateTone_withValidInput_matchesReferenceImplementation() {
+        WaveGenerator generator = new WaveGenerator();
+        assertArrayEquals(referenceTone(44100, 0.06f, 750, Short.MAX_VALUE), generator.generateTone(0.06f, 750, Short.MAX_VALUE));
+        assertArrayEquals(referenceTone(44100, 0.18f, 600, Short.MAX_VALUE * 0.5), generator.generateTone(0.18f, 600, Short.MAX_VALUE * 0.5));
+
+        WaveGenerator lowRate = new WaveGenerator(8000);
+        assertArrayEquals(referenceTone(8000, 0.24f, 700, Short.MAX_VALUE), lowRate.generateTone(0.24f, 700, Short.MAX_VALUE));
+    }
+
+    @Test
+    void generateTone_withZeroAmplitude_returnsSilence() {
+        byte[] silence = new WaveGenerator().generateTone(0.05f, 750, 0);
+        assertEquals(2205 * 2, silence.length);
+        for (byte b : silence) {
+            assertEquals(0, b);
+        }
+    }
+
+    @Test
+    void generateTone_withZeroOrNegativeDuration_throwsException() {
+        WaveGenerator generator = new WaveGenerator();
+        assertThrows(IllegalArgumentException.class, () -> generator.generateTone(0, 750, Short.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> generator.generateTone(-1, 750, Short.MAX_VALUE));
+    }
+
+    private static int maxSampleDifference(byte[] expected, byte[] actual) {
+        assertEquals(expected.length, actual.length);
+        int max = 0;
+        for (int i = 0; i < expected.length; i += 2) {
+            short e = (short) ((expected[i] & 0xFF) | (expected[i + 1] << 8));
+            short a = (short) ((actual[i] & 0xFF) | (actual[i + 1] << 8));
+            max = Math.max(max, Math.abs(e - a));
+        }
+        return max;
+    }
+
+    @Test
+    void generateTone_withFastOscillators_staysWithinOneLsbOfExact() {
+        float[] durations = {0.05f, 0.24f, 2.5f};
+        double[] frequencies = {440, 750, 1234.5, 3000};
+        for (Oscillator oscillator : new Oscillator[]{Oscillator.WAVETABLE, Oscillator.RESONATOR}) {
+            for (int sampleFrequency : new int[]{8000, 44100, 96000}) {
+                WaveGenerator exact = new WaveGenerator(sampleFrequency);
+                WaveGenerator fast = new WaveGenerator(sampleFrequency, oscillator);
+                for (float duration : durations) {
+                    for (double frequency : frequencies) {
+                        int difference = maxSampleDifference(
+                                exact.generateTone(duration, frequency, Short.MAX_VALUE),
+                                fast.generateTone(duration, frequency, Short.MAX_VALUE));
+                        assertTrue(difference <= 1, oscillator + " differs from EXACT by " + difference
+                                + " LSB at " + sampleFrequency + "Hz, " + duration + "s, " + frequency + "Hz");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void setOscillator_withNullInput_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new WaveGenerator().setOscillator(null));
+        assertEquals(Oscillator.EXACT, new WaveGenerator().getOscillator());
+    }
+
+    @Test
+    void generateTone_withPeriodTiling_staysWithinOneLsbOfFullSynthesis() {
+        for (int sampleFrequency : new int[]{8000, 44100, 48000}) {
+            WaveGenerator full = new WaveGenerator(sampleFrequency);
+            WaveGenerator tiled = new WaveGenerator(sampleFrequency);
+            tiled.setPeriodTiling(true);
+            for (float duration : new float[]{0.02f, 0.06f, 0.72f, 3f}) {
+                for (double frequency : new double[]{600, 700, 750, 1000}) {
+                    int difference = maxSampleDifference(
+                            full.generateTone(duration, frequency, Short.MAX_VALUE),
+                            tiled.generateTone(duration, frequency, Short.MAX_VALUE));
+                    assertTrue(difference <= 1, "tiled tone differs by " + difference
+                            + " LSB at " + sampleFrequency + "Hz, " + duration + "s, " + frequency + "Hz");
+                }
+            }
+        }
+    }
+
+    @Test
+    void generateTone_withPeriodTilingAndNearIntegerPeriod_staysWithinOneLsbOverLongTone() {
+        WaveGenerator full = new WaveGenerator();
+        WaveGenerator tiled = new WaveGenerator();
+        tiled.setPeriodTiling(true);
+        for (double frequency : new double[]{882 / (1 + 1e-8), 882 / (1 - 1e-8), 882 / (1 + 1e-11)}) {
+            int difference = maxSampleDifference(
+                    full.generateTone(10f, frequency, Short.MAX_VALUE),
+                    tiled.generateTone(10f, frequency, Short.MAX_VALUE));
+            assertTrue(difference <= 1, "tiled tone differs by " + difference + " LSB at " + frequency + "Hz");
+        }
+    }
+
+    @Test
+    void generateTone_withPeriodTilingAndNoShortPeriod_matchesFullSynthesis() {
+        WaveGenerator full = new WaveGenerator();
+        WaveGenerator tiled = new WaveGenerator();
+        tiled.setPeriodTiling(true);
+        assertArrayEquals(full.generateTone(0.5f, 1000 * Math.PI, Short.MAX_VALUE), tiled.generateTone(0.5f, 1000 * Math.PI, Short.MAX_VALUE));
+    }
+
+    @Test
+    void generateTone_inParallel_matchesSequentialGeneration() {
+        for (Oscillator oscillator : Oscillator.values()) {
+            WaveGenerator generator = new WaveGenerator(48000, oscillator);
+            for (float duration : new float[]{0.06f, 1.5f, 4.321f}) {
+                assertArrayEquals(generator.generateTone(duration, 750, Short.MAX_VALUE),
+                        generator.generateTone(duration, 750, Short.MAX_VALUE, 1), oscillator + " at " + duration + "s");
+            }
+        }
+    }
+}